@@ -0,0 +1,84 @@
+// BenchWorkload.java
+// -----------------------------------------------------------------------------
+// Implementación de cuadreitor.bench.Workload en el paquete por defecto, para
+// poder llamar a las clases del programa (ver Workload).
+// -----------------------------------------------------------------------------
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cuadreitor.bench.SyntheticCatalogue;
+import cuadreitor.bench.Workload;
+
+public final class BenchWorkload implements Workload {
+    private File json, bin;
+    private List<Scheduler.Subject> catalogue;
+    private CompiledCatalogue compiled;
+    private ScheduleQuery locked, perTipo, lockedFree, perTipoFree;
+    private Scheduler.Prepared bestLocked, bestPerTipo;
+    private Solution solLocked, solPerTipo;        // se buscan la primera vez que se piden (ver summary)
+
+    public BenchWorkload() {}
+
+    @Override
+    public void setUp(SyntheticCatalogue.Spec spec, int selected, Path dir) throws Exception {
+        json = dir.resolve("horarios.json").toFile();
+        SyntheticCatalogue.write(spec, json.toPath());
+        catalogue = Scheduler.loadCatalogue(json);        // también escribe horarios.bin
+        bin = CatalogueSnapshot.fileFor(json);
+        compiled = new CompiledCatalogue(catalogue);
+
+        if (selected == 0) return;                          // sólo carga y compilación
+
+        // Las primeras asignaturas del semestre 1
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < spec.subjects() && names.size() < selected; i++)
+            if (SyntheticCatalogue.semester(i).equals("1")) names.add(SyntheticCatalogue.subject(i));
+        locked = new ScheduleQuery(names, "1", Set.of(), Set.of(), true);
+        perTipo = new ScheduleQuery(names, "1", Set.of(), Set.of(), false);
+        lockedFree = new ScheduleQuery(names, "1", Set.of(DayOfWeek.FRIDAY), Set.of(), true);
+        perTipoFree = new ScheduleQuery(names, "1", Set.of(DayOfWeek.FRIDAY), Set.of(), false);
+
+        bestLocked = compiled.prepare(locked);
+        bestPerTipo = compiled.prepare(perTipo);
+    }
+
+    @Override public Object loadJson() throws Exception {
+        return CatalogueReader.read(json, new ArrayList<>());
+    }
+
+    @Override public Object loadSnapshot() throws Exception {
+        return CatalogueSnapshot.read(bin, json.length(), CatalogueSnapshot.contentHash(json), new ArrayList<>());
+    }
+
+    @Override public Object compile(boolean lock) {
+        return new CompiledCatalogue(catalogue).variant("1", lock);
+    }
+
+    @Override public Object prepare(boolean lock) {
+        return compiled.prepare(lock ? locked : perTipo);
+    }
+
+    @Override public Object search(boolean lock, boolean freeDay) {
+        ScheduleQuery q = lock ? (freeDay ? lockedFree : locked) : (freeDay ? perTipoFree : perTipo);
+        Scheduler.Prepared p = compiled.prepare(q);
+        return ScheduleEngine.BACKTRACKING.solve(p.problem(), new SearchMonitor());
+    }
+
+    @Override public Object summary(boolean lock) {
+        // Sólo lo usa SearchBenchmark: buscar aquí y no en setUp ahorra la búsqueda a CatalogueBenchmark
+        Scheduler.Prepared p = lock ? bestLocked : bestPerTipo;
+        if (lock && solLocked == null) solLocked = ScheduleEngine.BACKTRACKING.solve(p.problem(), new SearchMonitor());
+        if (!lock && solPerTipo == null) solPerTipo = ScheduleEngine.BACKTRACKING.solve(p.problem(), new SearchMonitor());
+        Solution sol = lock ? solLocked : solPerTipo;
+        List<Scheduler.Group> grupos = p.groupsOf(sol);
+        Map<DayOfWeek, List<Scheduler.Session>> porDia = Scheduler.porDia(grupos);
+        return Scheduler.buildSummary("Mejor combinación", p.subjects(), grupos, p.equivalentsOf(sol), sol.conflicts(),
+                Scheduler.detectConflicts(porDia), "1");
+    }
+}
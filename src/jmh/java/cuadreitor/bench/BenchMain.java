@@ -0,0 +1,24 @@
+// BenchMain.java
+// -----------------------------------------------------------------------------
+// Punto de entrada de benchmarks.jar: las mismas opciones que el Main de JMH,
+// pero siempre con el perfilador de GC para ver la tasa de asignación
+// (gc.alloc.rate y gc.alloc.rate.norm, bytes por operación).
+//
+//   java -jar target/benchmarks.jar                       todo
+//   java -jar target/benchmarks.jar Search -p density=0.9 sólo búsqueda, más solapes
+// -----------------------------------------------------------------------------
+package cuadreitor.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public final class BenchMain {
+    private BenchMain() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+// CatalogueBenchmark.java
+// -----------------------------------------------------------------------------
+// Carga del catálogo (JSON en streaming frente a instantánea binaria),
+// compilación de un semestre (unidades y máscaras semanales) y recorte de una
+// consulta de `selected` asignaturas: solapes de sus grupos calculados desde
+// las máscaras, sin matriz del semestre entero.
+// -----------------------------------------------------------------------------
+package cuadreitor.bench;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogueBenchmark {
+    @Param({"30", "300"}) public int subjects;
+    @Param({"6", "24"}) public int selected;
+    @Param("3") public int groupsPerSubject;
+    @Param("4") public int subgroupsPerGroup;
+    @Param("3") public int sessionsPerGroup;
+    @Param("0.1") public double aulaShare;
+    @Param("0.5") public double density;
+    @Param("20240901") public long seed;
+
+    private Workload w;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        w = Workload.create();
+        w.setUp(new SyntheticCatalogue.Spec(seed, subjects, groupsPerSubject, subgroupsPerGroup,
+                sessionsPerGroup, aulaShare, density), selected, Files.createTempDirectory("cuadreitor-bench"));
+    }
+
+    @Benchmark public Object loadJson() throws Exception { return w.loadJson(); }
+
+    @Benchmark public Object loadSnapshot() throws Exception { return w.loadSnapshot(); }
+
+    @Benchmark public Object compileLocked() { return w.compile(true); }
+
+    @Benchmark public Object compilePerTipo() { return w.compile(false); }
+
+    @Benchmark public Object prepareLocked() { return w.prepare(true); }
+
+    @Benchmark public Object preparePerTipo() { return w.prepare(false); }
+}
@@ -0,0 +1,59 @@
+// SearchBenchmark.java
+// -----------------------------------------------------------------------------
+// Una consulta completa (recorte del catálogo compilado + backtracking) con
+// bloqueo de subgrupo o mezcla por tipo, con y sin un día libre; y el resumen
+// de texto de la mejor combinación.
+// -----------------------------------------------------------------------------
+package cuadreitor.bench;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    @Param("60") public int subjects;
+    @Param("6") public int selected;
+    @Param("3") public int groupsPerSubject;
+    @Param("3") public int subgroupsPerGroup;
+    @Param("3") public int sessionsPerGroup;
+    @Param("0.1") public double aulaShare;
+    @Param({"0.3", "0.7"}) public double density;
+    @Param("20240901") public long seed;
+
+    private Workload w;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        w = Workload.create();
+        w.setUp(new SyntheticCatalogue.Spec(seed, subjects, groupsPerSubject, subgroupsPerGroup,
+                sessionsPerGroup, aulaShare, density), selected, Files.createTempDirectory("cuadreitor-bench"));
+    }
+
+    @Benchmark public Object searchLocked() { return w.search(true, false); }
+
+    @Benchmark public Object searchLockedFreeDay() { return w.search(true, true); }
+
+    @Benchmark public Object searchPerTipo() { return w.search(false, false); }
+
+    @Benchmark public Object searchPerTipoFreeDay() { return w.search(false, true); }
+
+    @Benchmark public Object summary() { return w.summary(false); }
+}
@@ -0,0 +1,91 @@
+// SyntheticCatalogue.java
+// -----------------------------------------------------------------------------
+// Generador de catálogos sintéticos con el mismo formato que horarios.json y
+// una forma parecida a los reales: cada asignatura tiene grupos, cada grupo
+// varios subgrupos que comparten la teoría (una entrada por subgrupo, como en
+// el fichero de verdad) y tienen su propia sesión de prácticas de dos horas.
+//
+// Con la misma Spec (semilla incluida) el fichero es idéntico byte a byte.
+// density (0..1) estrecha la franja horaria del día: 0 reparte las sesiones
+// entre las 8:00 y las 21:00; 1 las concentra en tres horas y casi todo choca.
+// -----------------------------------------------------------------------------
+package cuadreitor.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public final class SyntheticCatalogue {
+    private static final String[] DIAS = {"LUNES", "MARTES", "MIÉRCOLES", "JUEVES", "VIERNES"};
+    private static final int FIRST_HOUR = 8, LAST_HOUR = 21;
+
+    /**
+     * @param subjects            asignaturas (mitad en cada semestre, cursos 1–4)
+     * @param groupsPerSubject    grupos de teoría por asignatura
+     * @param subgroupsPerGroup   subgrupos de prácticas por grupo
+     * @param sessionsPerGroup    sesiones de teoría por semana de cada grupo
+     * @param aulaShare           fracción de prácticas que son "PRÁCTICAS AULA"
+     * @param density             0..1, cuánto se concentran las sesiones en el día
+     */
+    public record Spec(long seed, int subjects, int groupsPerSubject, int subgroupsPerGroup,
+                       int sessionsPerGroup, double aulaShare, double density) {}
+
+    private SyntheticCatalogue() {}
+
+    /** Nombre de la asignatura i del catálogo generado. */
+    public static String subject(int i) {
+        return String.format("S%03d", i);
+    }
+
+    /** Semestre ("1" o "2") de la asignatura i. */
+    public static String semester(int i) {
+        return i % 2 == 0 ? "1" : "2";
+    }
+
+    public static void write(Spec spec, Path file) throws IOException {
+        Random rnd = new Random(spec.seed());
+        int window = Math.max(3, (int) Math.round((LAST_HOUR - FIRST_HOUR) * (1 - spec.density())));
+        StringBuilder sb = new StringBuilder("[\n");
+        boolean first = true;
+        for (int s = 0; s < spec.subjects(); s++) {
+            String curso = Integer.toString(1 + (s / 2) % 4);
+            int sub = 1;
+            for (int g = 1; g <= spec.groupsPerSubject(); g++) {
+                // Teoría: mismas horas para todos los subgrupos del grupo
+                int[] tDay = new int[spec.sessionsPerGroup()], tHour = new int[spec.sessionsPerGroup()];
+                for (int t = 0; t < tDay.length; t++) {
+                    tDay[t] = rnd.nextInt(DIAS.length);
+                    tHour[t] = FIRST_HOUR + rnd.nextInt(window - 1);
+                }
+                for (int p = 0; p < spec.subgroupsPerGroup(); p++, sub++) {
+                    for (int t = 0; t < tDay.length; t++) {
+                        sb.append(first ? "" : ",\n");
+                        entry(sb, s, g, sub, "TEORÍA", tDay[t], tHour[t], 1, curso);
+                        first = false;
+                    }
+                    String tipo = rnd.nextDouble() < spec.aulaShare() ? "PRÁCTICAS AULA" : "PRÁCTICAS";
+                    sb.append(first ? "" : ",\n");
+                    entry(sb, s, g, sub, tipo, rnd.nextInt(DIAS.length), FIRST_HOUR + rnd.nextInt(window - 1), 2, curso);
+                    first = false;
+                }
+            }
+        }
+        sb.append("\n]\n");
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    private static void entry(StringBuilder sb, int s, int g, int sub, String tipo, int day, int hour, int hours, String curso) {
+        int end = Math.min(LAST_HOUR + 1, hour + hours);
+        sb.append("  {\"asignatura\":\"").append(subject(s))
+          .append("\",\"grupo\":\"").append(g)
+          .append("\",\"subgrupo\":\"").append(sub)
+          .append("\",\"tipo\":\"").append(tipo)
+          .append("\",\"dia\":\"").append(DIAS[day])
+          .append("\",\"inicio\":\"").append(hour).append(":00")
+          .append("\",\"fin\":\"").append(end).append(":00")
+          .append("\",\"curso\":\"").append(curso)
+          .append("\",\"semestre\":\"").append(semester(s)).append("\"}");
+    }
+}
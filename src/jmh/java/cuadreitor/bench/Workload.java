@@ -0,0 +1,38 @@
+// Workload.java
+// -----------------------------------------------------------------------------
+// Puente entre los benchmarks y el código del programa. JMH no admite
+// benchmarks en el paquete por defecto, y desde un paquete con nombre no se
+// pueden usar las clases de Cuadreitor (que viven en el paquete por defecto);
+// así que la implementación (BenchWorkload) está en el paquete por defecto y
+// los benchmarks sólo ven esta interfaz.
+// -----------------------------------------------------------------------------
+package cuadreitor.bench;
+
+import java.nio.file.Path;
+
+public interface Workload {
+    /** Genera el catálogo en {@code dir}, lo carga y deja preparada cada operación. */
+    void setUp(SyntheticCatalogue.Spec spec, int selected, Path dir) throws Exception;
+
+    /** horarios.json leído en streaming. */
+    Object loadJson() throws Exception;
+
+    /** Instantánea binaria (horarios.bin) leída. */
+    Object loadSnapshot() throws Exception;
+
+    /** Unidades y máscaras de un semestre compiladas desde cero. */
+    Object compile(boolean lock);
+
+    /** Recorte de la consulta sin buscar: dominios, solapes entre sus grupos (desde las máscaras), orden y simetrías. */
+    Object prepare(boolean lock);
+
+    /** Recorte de la consulta y búsqueda de la mejor combinación (backtracking). */
+    Object search(boolean lock, boolean freeDay);
+
+    /** Resumen de texto y sesiones en conflicto de la mejor combinación. */
+    Object summary(boolean lock);
+
+    static Workload create() throws ReflectiveOperationException {
+        return (Workload) Class.forName("BenchWorkload").getDeclaredConstructor().newInstance();
+    }
+}
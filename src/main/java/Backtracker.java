@@ -0,0 +1,419 @@
+// Backtracker.java
+// -----------------------------------------------------------------------------
+// Ramificación y poda sobre un SearchProblem (antes Scheduler.backtrackOpt).
+//
+// • solve(k): búsqueda secuencial en profundidad.
+// • solveParallel(k): reparte los primeros niveles del árbol (con el mismo orden
+//   de dominios y grupos que el secuencial) en tareas ForkJoin, una por prefijo,
+//   en orden DFS.
+// • Ambas avisan al SearchMonitor de cada incumbente y paran de forma
+//   cooperativa si se cancela, devolviendo lo mejor encontrado hasta entonces.
+//
+// Sin memo: en un árbol de búsqueda cada conjunto de grupos asignados se alcanza
+// una sola vez, así que una tabla indexada por él nunca acierta.
+//
+// Top-K: las k mejores hojas se guardan en un montículo acotado ordenado por
+// (coste, tarea, orden de llegada) y se poda contra la k-ésima. Con k = 1 es
+// exactamente la poda original "curConf + inc >= best".
+//
+// Comprobación hacia delante: cada tarea lleva, para cada dominio sin asignar y
+// cada uno de sus grupos admisibles, los solapes con lo ya asignado (se suma al
+// apilar y se resta al desapilar). La suma de los mínimos por dominio es una cota admisible
+// de lo que falta (los solapes entre dominios futuros sólo pueden sumar), así
+// que se poda en cuanto solapes + cota alcanza la k-ésima. No cambia el
+// resultado: sólo corta ramas que no podían dar una hoja mejor. Con peso de
+// solapes w, la cota de solapes se multiplica por w. Un dominio sin ningún grupo
+// que quepa (p. ej. cuando ya sólo vale 0 solapes y todos chocan con lo
+// asignado) dispara la cota y la rama se corta en el acto.
+//
+// Orden dinámico: el siguiente dominio es el que tiene menos grupos empatados en
+// su mínimo de solapes con lo asignado (a igualdad, el de menos grupos). Dentro del dominio los grupos se
+// prueban de menos a más solapes con lo asignado, y en cuanto uno no cabe se
+// descartan todos los que quedan. Ambos órdenes dependen sólo de lo asignado (ni
+// de la cota ni de lo ya recorrido), así que el árbol es siempre el mismo. Los grupos en días libres ya no llegan
+// aquí (se quitan al preparar el problema, que es donde se cuentan).
+//
+// Objetivo (Objective): se minimiza solapes·peso más los costes por día. Cada
+// tarea lleva la ocupación de cada día (OR de las máscaras apiladas) y su coste;
+// al apilar un grupo sólo se reevalúan sus días y al desapilar se restaura el
+// estado guardado del nivel. Días con clase, entrar pronto y salir tarde entran
+// en la cota tal cual (sólo crecen); los huecos, sólo en días que ya no puede
+// tocar ningún dominio pendiente, y completos en la hoja. Con sólo solapes no se
+// lleva nada de esto y la búsqueda es la de siempre.
+//
+// Arranque en caliente: si el problema trae k semillas (WarmStart), la poda
+// empieza contra la k-ésima (empates incluidos) en vez de contra infinito.
+//
+// Mismo resultado que el secuencial: las tareas son trozos consecutivos del mismo
+// árbol en orden DFS y los empates se deshacen por (tarea, orden de llegada), que
+// es el orden DFS. Una tarea anterior a la de la k-ésima puede empatarla; una
+// posterior tiene que mejorarla estrictamente.
+// -----------------------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+final class Backtracker {
+    private static final long NO_INCUMBENT = pack(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final SearchProblem problem;
+    private final SearchMonitor monitor;
+    private final int[][] allowed;     // grupos de cada dominio (prepare ya quitó los de días libres)
+    private final Objective objective;
+    private final int weight;          // peso de cada solape
+    private final boolean daily;       // hay costes por día que llevar al apilar
+    private final int[] domainDays;    // domainDays[e]: días que tocan los grupos de allowed[e]
+    private final int maxDomain;
+
+    Backtracker(SearchProblem problem, SearchMonitor monitor) {
+        this.problem = problem;
+        this.monitor = monitor;
+        this.allowed = problem.domains().toArray(int[][]::new);
+        this.objective = problem.objective();
+        this.weight = objective.overlaps();
+        this.daily = objective.soft();
+        this.domainDays = new int[allowed.length];
+        int max = 0;
+        for (int d = 0; d < allowed.length; d++) {
+            for (int id : allowed[d]) domainDays[d] |= problem.masks()[id].dayBits();
+            max = Math.max(max, allowed[d].length);
+        }
+        this.maxDomain = max;
+    }
+
+    /**
+     * Búsqueda secuencial de las k mejores asignaciones distintas, de menor a mayor
+     * coste. Vacía si ninguna respeta los días libres (o si se canceló antes
+     * de encontrar la primera).
+     */
+    List<Solution> solve(int k) {
+        TopK top = new TopK(k);
+        new Worker(0, top).run(Prefix.ROOT);
+        return top.sorted();
+    }
+
+    /** Búsqueda paralela en el pool común; mismos costes que {@link #solve(int)}. */
+    List<Solution> solveParallel(int k) {
+        return solveParallel(k, ForkJoinPool.commonPool());
+    }
+
+    List<Solution> solveParallel(int k, ForkJoinPool pool) {
+        int n = problem.domains().size(), target = pool.getParallelism() * 8;
+        if (n == 0) return solve(k);
+
+        // Se baja nivel a nivel hasta tener trabajo para todos los hilos; cada
+        // prefijo se abre en sus hijos en orden, así que la lista sigue en orden DFS
+        List<Prefix> prefixes = List.of(Prefix.ROOT);
+        for (int depth = 0; depth < n && prefixes.size() < target; depth++) {
+            List<Prefix> next = new ArrayList<>();
+            for (Prefix p : prefixes) children(p, next);
+            prefixes = next;
+        }
+
+        TopK top = new TopK(k);
+        List<RecursiveAction> tasks = new ArrayList<>(prefixes.size());
+        for (int t = 0; t < prefixes.size(); t++) {
+            Worker w = new Worker(t, top);
+            Prefix p = prefixes.get(t);
+            tasks.add(new RecursiveAction() {
+                @Override protected void compute() { w.run(p); }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override protected void compute() { invokeAll(tasks); }
+        });
+        return top.sorted();
+    }
+
+    // Hijos de un prefijo en el orden en que los probaría la búsqueda (mismo
+    // dominio siguiente y mismo orden de grupos), sin podar: ya podará cada tarea
+    private void children(Prefix p, List<Prefix> out) {
+        Worker w = new Worker(-1, null);
+        w.open();
+        try {
+            w.replay(p);
+            int d = w.pick();
+            int[] order = w.sortByConflicts(w.partial[d], new int[allowed[d].length]);
+            for (int j : order) {
+                monitor.node();
+                out.add(p.then(d, j));
+            }
+        } finally {
+            w.close();
+        }
+    }
+
+    /* ---------- Prefijo de una tarea: dominios asignados en orden y grupo elegido en cada uno ---------- */
+    private record Prefix(int[] domains, int[] values) {
+        static final Prefix ROOT = new Prefix(new int[0], new int[0]);
+
+        int size() { return domains.length; }
+
+        // values[i]: índice del grupo en allowed[domains[i]]
+        Prefix then(int d, int j) {
+            int[] ds = Arrays.copyOf(domains, size() + 1), vs = Arrays.copyOf(values, size() + 1);
+            ds[size()] = d;
+            vs[size()] = j;
+            return new Prefix(ds, vs);
+        }
+    }
+
+    private static long pack(int conflicts, int task) {
+        return ((long) conflicts << 32) | task;
+    }
+
+    /* ---------- Montículo acotado con las k mejores hojas (compartido entre tareas) ---------- */
+    private record Leaf(int cost, int conflicts, int task, long seq, int[] ids) {}
+
+    private static final Comparator<Leaf> LEAF_ORDER = Comparator
+            .comparingInt(Leaf::cost).thenComparingInt(Leaf::task).thenComparingLong(Leaf::seq);
+
+    private final class TopK {
+        final int k;
+        final PriorityQueue<Leaf> heap;                 // la peor arriba
+        volatile long kth;                              // (coste, tarea) de la k-ésima si está lleno
+
+        TopK(int k) {
+            if (k < 1) throw new IllegalArgumentException("k debe ser ≥ 1: " + k);
+            this.k = k;
+            this.heap = new PriorityQueue<>(k + 1, LEAF_ORDER.reversed());
+            // Con semillas, cualquier hoja que empate con la cota aún puede entrar: la
+            // tarea ficticia Integer.MAX_VALUE va después de todas, así que limit() da cota + 1
+            int bound = problem.seedBound(k);
+            this.kth = bound == Integer.MAX_VALUE ? NO_INCUMBENT : pack(bound, Integer.MAX_VALUE);
+        }
+
+        synchronized void offer(int cost, int conflicts, int task, long seq, int[] cur) {
+            Leaf leaf = new Leaf(cost, conflicts, task, seq, cur.clone());
+            if (heap.size() == k && LEAF_ORDER.compare(leaf, heap.peek()) >= 0) return;
+            heap.add(leaf);
+            if (heap.size() > k) heap.poll();
+            if (heap.size() == k) kth = pack(heap.peek().cost(), heap.peek().task());
+            monitor.improved(new Solution(cost, conflicts, leaf.ids()));
+        }
+
+        synchronized List<Solution> sorted() {
+            return heap.stream().sorted(LEAF_ORDER).map(l -> new Solution(l.cost(), l.conflicts(), l.ids())).toList();
+        }
+    }
+
+    /* ---------- Un hilo de búsqueda: prefijo fijo y estado propio ---------- */
+    private final class Worker {
+        final int task;
+        final int[] cur;       // cur[d]: grupo elegido en el dominio d (si assigned[d])
+        final TopK top;
+        final boolean[] assigned;
+        int[][] partial;       // partial[e][j]: solapes de allowed[e][j] con lo asignado (mientras se ejecuta)
+        int[][] valueOrder;    // valueOrder[depth]: índices del dominio elegido, por solapes
+        // Costes por día (sólo si daily): ocupación de lo asignado, coste fijo y de
+        // huecos de cada día, sus sumas y el estado guardado al asignar cada dominio
+        long[] occ;
+        int[] day;             // day[d]: días/pronto/tarde; day[DAYS + d]: huecos
+        int dayCost, gapCost;
+        long[][] occAt;
+        int[][] dayAt;
+        int[] dayCostAt, gapCostAt;
+        long leaves;
+        long prunes;                 // se vuelca al monitor al terminar
+
+        Worker(int task, TopK top) {
+            this.task = task;
+            this.cur = new int[allowed.length];
+            this.top = top;
+            this.assigned = new boolean[allowed.length];
+        }
+
+        // Cota de poda: la k-ésima mejor hoja (+1 si es de una tarea posterior,
+        // porque entonces el empate gana)
+        int limit() {
+            long kth = top.kth;
+            if (kth == NO_INCUMBENT) return Integer.MAX_VALUE;
+            int c = (int) (kth >>> 32), t = (int) kth;
+            return t <= task ? c : c + 1;
+        }
+
+        // Asigna el prefijo de la tarea y busca por debajo
+        void run(Prefix prefix) {
+            open();
+            try {
+                long start = replay(prefix);
+                int conf = (int) (start >>> 32), bound = (int) start;
+                if ((long) weight * conf + bound < limit()) backtrackOpt(prefix.size(), conf, bound);
+            } finally {
+                close();
+            }
+        }
+
+        void open() {
+            partial = new int[allowed.length][];
+            for (int e = 0; e < allowed.length; e++) partial[e] = new int[allowed[e].length];
+            valueOrder = new int[allowed.length][maxDomain];
+            if (daily) {
+                occ = new long[WeekMask.DAYS * WeekMask.WORDS_PER_DAY];
+                day = new int[2 * WeekMask.DAYS];
+                occAt = new long[allowed.length][occ.length];
+                dayAt = new int[allowed.length][day.length];
+                dayCostAt = new int[allowed.length];
+                gapCostAt = new int[allowed.length];
+            }
+        }
+
+        void close() {
+            partial = null;
+            valueOrder = null;
+            occ = null;
+            occAt = null;
+            monitor.counters(prunes, 0);
+        }
+
+        // Asigna los grupos del prefijo como lo haría la búsqueda; devuelve
+        // (solapes << 32 | cota de lo que falta)
+        long replay(Prefix p) {
+            int conf = 0, bound = 0;
+            for (int i = 0; i < p.size(); i++) {
+                int d = p.domains()[i], j = p.values()[i];
+                conf += partial[d][j];
+                assigned[d] = true;
+                cur[d] = allowed[d][j];
+                bound = push(d, cur[d]);
+            }
+            return ((long) conf << 32) | (bound & 0xFFFFFFFFL);
+        }
+
+        // bound: cota de lo que falta (la que devolvió el último push)
+        void backtrackOpt(int depth, int curConf, int bound) {
+            if (limit() == 0 || monitor.isCancelled()) return;
+
+            List<int[]> domains = problem.domains();
+            if (depth == domains.size()) {
+                int cost = weight * curConf + dayCost + gapCost;
+                if (cost < limit()) top.offer(cost, curConf, task, leaves++, cur);
+                return;
+            }
+
+            int d = pick();
+            int[] values = allowed[d], acc = partial[d];
+            int[] order = sortByConflicts(acc, valueOrder[depth]);
+            assigned[d] = true;
+            for (int i = 0; i < values.length; i++) {
+                int j = order[i], id = values[j];
+                monitor.node();
+                int next = curConf + acc[j];
+                // Valores ordenados por solapes: si éste no cabe, los siguientes tampoco
+                if ((long) weight * next + dayCost >= limit()) { prunes += values.length - i; break; }
+
+                cur[d] = id;
+                int childBound = push(d, id);
+                if ((long) weight * next + childBound >= limit()) prunes++;
+                else backtrackOpt(depth + 1, next, childBound);
+                pop(d, id);
+
+                if (limit() == 0) break;
+            }
+            assigned[d] = false;
+        }
+
+        // Siguiente dominio: el de menos grupos empatados en su mínimo de solapes
+        // con lo asignado; a igualdad, el de menos grupos y luego el primero. Sólo
+        // depende de lo asignado (ni de la cota ni de lo recorrido), para que el
+        // árbol y su orden DFS sean los mismos en secuencial y en paralelo
+        int pick() {
+            int best = -1, bestTied = 0, bestSize = 0;
+            for (int e = 0; e < allowed.length; e++) {
+                if (assigned[e]) continue;
+                int min = Integer.MAX_VALUE, tied = 0;
+                for (int c : partial[e]) {
+                    if (c < min) { min = c; tied = 1; }
+                    else if (c == min) tied++;
+                }
+                int size = partial[e].length;
+                if (best < 0 || tied < bestTied || tied == bestTied && size < bestSize) {
+                    best = e;
+                    bestTied = tied;
+                    bestSize = size;
+                }
+            }
+            return best;
+        }
+
+        // Índices 0..acc.length-1 en order, por solapes con lo asignado (estable)
+        int[] sortByConflicts(int[] acc, int[] order) {
+            for (int i = 0; i < acc.length; i++) {
+                int j = i;
+                while (j > 0 && acc[order[j - 1]] > acc[i]) { order[j] = order[j - 1]; j--; }
+                order[j] = i;
+            }
+            return order;
+        }
+
+        // Suma los solapes de id (ya asignado a su dominio d) a los dominios sin
+        // asignar y devuelve la cota de lo que queda: suma de sus mínimos por el
+        // peso (∞ si alguno se queda vacío), más la parte de los costes por día que
+        // ya no baja
+        int push(int d, int id) {
+            int[] row = problem.conflicts()[id];
+            long bound = 0;
+            for (int e = 0; e < allowed.length; e++) {
+                if (assigned[e]) continue;
+                int[] values = allowed[e], acc = partial[e];
+                int min = Integer.MAX_VALUE;
+                for (int j = 0; j < values.length; j++) {
+                    int c = acc[j] += row[values[j]];
+                    if (c < min) min = c;
+                }
+                bound += min;
+            }
+            int lower = daily ? pushDays(d, id) : 0;     // siempre, para que pop pueda restaurar
+            if (bound >= Integer.MAX_VALUE) return Integer.MAX_VALUE;
+            return (int) Math.min(bound * weight + lower, Integer.MAX_VALUE);
+        }
+
+        void pop(int d, int id) {
+            int[] row = problem.conflicts()[id];
+            for (int e = 0; e < allowed.length; e++) {
+                if (assigned[e]) continue;
+                int[] values = allowed[e], acc = partial[e];
+                for (int j = 0; j < values.length; j++) acc[j] -= row[values[j]];
+            }
+            if (daily) {
+                System.arraycopy(occAt[d], 0, occ, 0, occ.length);
+                System.arraycopy(dayAt[d], 0, day, 0, day.length);
+                dayCost = dayCostAt[d];
+                gapCost = gapCostAt[d];
+            }
+        }
+
+        // Guarda el estado por día antes de asignar d, añade las franjas de id y
+        // reevalúa sólo sus días. Devuelve la cota por días: el coste fijo más los
+        // huecos de los días que no toca ningún dominio sin asignar
+        int pushDays(int d, int id) {
+            System.arraycopy(occ, 0, occAt[d], 0, occ.length);
+            System.arraycopy(day, 0, dayAt[d], 0, day.length);
+            dayCostAt[d] = dayCost;
+            gapCostAt[d] = gapCost;
+
+            WeekMask m = problem.masks()[id];
+            m.orInto(occ);
+            for (int x = 0, days = m.dayBits(); x < WeekMask.DAYS; x++) {
+                if ((days & (1 << x)) == 0) continue;
+                int c = objective.dayCost(occ, x), g = objective.gapCost(occ, x);
+                dayCost += c - day[x];
+                gapCost += g - day[WeekMask.DAYS + x];
+                day[x] = c;
+                day[WeekMask.DAYS + x] = g;
+            }
+
+            int open = 0;
+            for (int e = 0; e < allowed.length; e++) if (!assigned[e]) open |= domainDays[e];
+            int lower = dayCost;
+            for (int x = 0; x < WeekMask.DAYS; x++)
+                if ((open & (1 << x)) == 0) lower += day[WeekMask.DAYS + x];
+            return lower;
+        }
+    }
+}
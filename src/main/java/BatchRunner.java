@@ -0,0 +1,150 @@
+// BatchRunner.java
+// -----------------------------------------------------------------------------
+// Modo por lotes sin ventana (java -jar Scheduler.jar --batch ...). Lee un
+// fichero de consultas, una por línea (ver ScheduleJson), las resuelve en
+// paralelo con un hilo por núcleo y escribe un resultado JSON por línea en el
+// mismo orden de entrada. El catálogo se carga una vez y lo comparten todas.
+//
+// Con --todas N escribe, en vez de las mejores, todas las combinaciones de cada
+// consulta con como mucho N solapes (ScheduleService.enumerate), una por línea
+// y en el orden de la búsqueda, cortadas a --maximo por consulta.
+// -----------------------------------------------------------------------------
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+final class BatchRunner {
+    private static final String USAGE = """
+            Uso: java -jar Scheduler.jar --batch <consultas.jsonl> [opciones]
+              --salida <fichero>    resultados NDJSON (por defecto, salida estándar)
+              --horarios <fichero>  catálogo (por defecto, horarios.json)
+              --hilos <n>           consultas simultáneas (por defecto, núcleos disponibles)
+              --todas <solapes>     todas las combinaciones con como mucho esos solapes, una por línea
+              --maximo <n>          con --todas, combinaciones como mucho por consulta (por defecto, 1000)""";
+    private static final int DEFAULT_MAX_OPTIONS = 1000;
+
+    private BatchRunner() {}
+
+    /** @return código de salida del proceso */
+    static int run(String[] args) {
+        Path input = null, output = null;
+        File horarios = new File("horarios.json");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxConflicts = -1, maxOptions = DEFAULT_MAX_OPTIONS;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--salida" -> output = Path.of(args[++i]);
+                    case "--horarios" -> horarios = new File(args[++i]);
+                    case "--hilos" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--todas" -> {
+                        maxConflicts = Integer.parseInt(args[++i]);
+                        if (maxConflicts < 0) throw new IllegalArgumentException("--todas debe ser ≥ 0: " + maxConflicts);
+                    }
+                    case "--maximo" -> maxOptions = Math.max(1, Integer.parseInt(args[++i]));
+                    default -> {
+                        if (input != null || args[i].startsWith("--")) throw new IllegalArgumentException(args[i]);
+                        input = Path.of(args[i]);
+                    }
+                }
+            }
+            if (input == null) throw new IllegalArgumentException("falta el fichero de consultas");
+        } catch (RuntimeException e) {
+            System.err.println("Argumento no válido: " + e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        ScheduleService service;
+        try { service = new ScheduleService(Scheduler.loadCatalogue(horarios)); }
+        catch (Exception e) {
+            System.err.println("No se pudo cargar " + horarios.getAbsolutePath() + ": " + e.getMessage());
+            return 1;
+        }
+
+        long t0 = System.nanoTime();
+        int count = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             Writer out = output == null
+                     ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                     : Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            PrintWriter pw = new PrintWriter(out);
+            // Ventana acotada de consultas en curso: memoria constante y salida en orden
+            Deque<Future<String>> window = new ArrayDeque<>();
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                String l = line;
+                int n = lineNo, max = maxConflicts, limit = maxOptions;
+                window.add(pool.submit(() -> max < 0 ? solveLine(service, l, n) : enumerateLines(service, l, n, max, limit)));
+                count++;
+                if (window.size() >= threads * 4) pw.println(window.poll().get());
+            }
+            while (!window.isEmpty()) pw.println(window.poll().get());
+            pw.flush();
+        } catch (IOException | ExecutionException e) {
+            System.err.println("Error en el modo por lotes: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            pool.shutdownNow();
+        }
+        System.err.printf("%d consultas resueltas en %d ms%n", count, (System.nanoTime() - t0) / 1_000_000);
+        return 0;
+    }
+
+    // Nunca lanza: cualquier fallo de la consulta se devuelve como estado ERROR
+    private static String solveLine(ScheduleService service, String line, int lineNo) throws IOException {
+        String id = "linea-" + lineNo;
+        ScheduleJson.Response r;
+        try {
+            ScheduleJson.Request req = ScheduleJson.MAPPER.readValue(line, ScheduleJson.Request.class);
+            if (req.id() != null) id = req.id();
+            ScheduleService.Outcome o = service.solve(req.toQuery(), req.engine(), req.k(), new SearchMonitor());
+            r = ScheduleJson.response(id, o);
+        } catch (Exception e) {
+            r = ScheduleJson.error(id, e.getMessage());
+        }
+        return ScheduleJson.MAPPER.writeValueAsString(r);
+    }
+
+    // Igual, con una línea por combinación (o una con el estado si no hay ninguna)
+    private static String enumerateLines(ScheduleService service, String line, int lineNo, int maxConflicts, int limit)
+            throws IOException {
+        String id = "linea-" + lineNo;
+        try {
+            ScheduleJson.Request req = ScheduleJson.MAPPER.readValue(line, ScheduleJson.Request.class);
+            if (req.id() != null) id = req.id();
+            ScheduleService.Listing all = service.enumerate(req.toQuery(), maxConflicts, new SearchMonitor());
+            StringJoiner out = new StringJoiner(System.lineSeparator());
+            try (Stream<Solution> options = all.solutions().limit(limit)) {
+                for (Solution s : (Iterable<Solution>) options::iterator)
+                    out.add(ScheduleJson.MAPPER.writeValueAsString(ScheduleJson.option(id, all.prepared(), s)));
+            }
+            if (out.length() > 0) return out.toString();
+            return ScheduleJson.MAPPER.writeValueAsString(ScheduleJson.noOption(id, maxConflicts));
+        } catch (Exception e) {
+            return ScheduleJson.MAPPER.writeValueAsString(ScheduleJson.error(id, e.getMessage()));
+        }
+    }
+}
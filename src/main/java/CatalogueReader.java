@@ -0,0 +1,153 @@
+// CatalogueReader.java
+// -----------------------------------------------------------------------------
+// Lectura de horarios.json en streaming (JsonParser de Jackson), sin lista
+// intermedia de entradas: cada una se convierte en Session y se agrupa en su
+// asignatura y grupo en la misma pasada, así que la memoria pico es la del
+// catálogo final y no varias veces el fichero.
+//
+// Formato: un array de objetos con asignatura, grupo, subgrupo, tipo, dia,
+// inicio, fin, curso y semestre (texto; se admiten comentarios), y "plazas"
+// opcional (entero ≥ 0): las plazas del grupo-subgrupo para ese tipo de sesión
+// (Scheduler.normalizeTipo); si varias entradas del mismo grupo y tipo las
+// indican, vale la menor. Los textos repetidos y las horas se
+// comparten entre sesiones (una instancia por valor).
+//
+// Una entrada mal formada (falta un campo, día u hora no válidos, no es un
+// objeto) se salta y se anota con su línea y columna; sólo un JSON roto
+// sintácticamente interrumpe la carga.
+// -----------------------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+
+final class CatalogueReader {
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("H:mm");
+    private static final JsonFactory FACTORY = JsonFactory.builder().enable(JsonReadFeature.ALLOW_JAVA_COMMENTS).build();
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, LocalTime> times = new HashMap<>();
+    private final Map<String, Map<String, List<Scheduler.Session>>> subjects = new LinkedHashMap<>();
+    private final Map<String, Map<String, Map<String, Integer>>> capacities = new HashMap<>();   // asignatura → grupo → tipo
+    private final List<String> problems;
+
+    private CatalogueReader(List<String> problems) {
+        this.problems = problems;
+    }
+
+    /**
+     * Asignaturas del catálogo, en orden de aparición (y sus grupos también).
+     * Las entradas descartadas se añaden a {@code problems} como "línea L, columna C: motivo".
+     * @throws IOException si el fichero no se puede leer o no es JSON válido
+     */
+    static List<Scheduler.Subject> read(File file, List<String> problems) throws IOException {
+        CatalogueReader r = new CatalogueReader(problems);
+        try (JsonParser p = FACTORY.createParser(file)) {
+            if (p.nextToken() != JsonToken.START_ARRAY)
+                throw new IOException(at(p.currentTokenLocation()) + ": se esperaba un array de sesiones");
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                if (p.currentToken() == null) throw new IOException("Fin de fichero inesperado");
+                r.entry(p);
+            }
+        }
+        return r.subjects();
+    }
+
+    private void entry(JsonParser p) throws IOException {
+        JsonLocation where = p.currentTokenLocation();
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            problems.add(at(where) + ": se esperaba un objeto");
+            return;
+        }
+        String asignatura = null, grupo = null, subgrupo = null, tipo = null, dia = null,
+                inicio = null, fin = null, curso = null, semestre = null, plazas = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) { p.skipChildren(); continue; }
+            String v = t == JsonToken.VALUE_NULL ? null : p.getText();
+            switch (field) {
+                case "asignatura" -> asignatura = v;
+                case "grupo" -> grupo = v;
+                case "subgrupo" -> subgrupo = v;
+                case "tipo" -> tipo = v;
+                case "dia" -> dia = v;
+                case "inicio" -> inicio = v;
+                case "fin" -> fin = v;
+                case "curso" -> curso = v;
+                case "semestre" -> semestre = v;
+                case "plazas" -> plazas = v;
+                default -> { }
+            }
+        }
+
+        try {
+            if (asignatura == null) throw new IllegalArgumentException("falta \"asignatura\"");
+            if (dia == null || inicio == null || fin == null) throw new IllegalArgumentException("faltan \"dia\", \"inicio\" o \"fin\"");
+            DayOfWeek day = Scheduler.parseDay(dia);
+            LocalTime st = time(inicio), en = time(fin);
+            int seats = capacity(plazas);
+            String code = intern(grupo + (subgrupo == null ? "" : "-" + subgrupo));
+            Scheduler.Session s = new Scheduler.Session(day, st, en, intern(asignatura), code,
+                    intern(tipo), intern(curso), intern(semestre));
+            subjects.computeIfAbsent(s.asignatura(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(code, k -> new ArrayList<>()).add(s);
+            if (seats != Scheduler.Group.UNLIMITED)
+                capacities.computeIfAbsent(s.asignatura(), k -> new HashMap<>()).computeIfAbsent(code, k -> new HashMap<>())
+                        .merge(Scheduler.normalizeTipo(s.tipo()), seats, Math::min);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            problems.add(at(where) + ": " + e.getMessage());
+        }
+    }
+
+    private List<Scheduler.Subject> subjects() {
+        List<Scheduler.Subject> res = new ArrayList<>(subjects.size());
+        subjects.forEach((asig, groups) -> {
+            List<Scheduler.Group> gl = new ArrayList<>(groups.size());
+            Map<String, Map<String, Integer>> caps = capacities.getOrDefault(asig, Map.of());
+            groups.forEach((code, list) -> gl.add(new Scheduler.Group(code, list, caps.getOrDefault(code, Map.of()))));
+            res.add(new Scheduler.Subject(asig, gl));
+        });
+        return res;
+    }
+
+    private static int capacity(String plazas) {
+        if (plazas == null) return Scheduler.Group.UNLIMITED;
+        try {
+            int n = Integer.parseInt(plazas.trim());
+            if (n >= 0) return n;
+        } catch (NumberFormatException e) {
+            // cae al error de abajo
+        }
+        throw new IllegalArgumentException("\"plazas\" no válidas: " + plazas);
+    }
+
+    private String intern(String s) {
+        return s == null ? null : strings.computeIfAbsent(s, k -> k);
+    }
+
+    private LocalTime time(String s) {
+        LocalTime t = times.get(s);
+        if (t == null) times.put(s, t = LocalTime.parse(s, HORA));
+        return t;
+    }
+
+    private static String at(JsonLocation l) {
+        return "línea " + l.getLineNr() + ", columna " + l.getColumnNr();
+    }
+}
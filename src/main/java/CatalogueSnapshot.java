@@ -0,0 +1,274 @@
+// CatalogueSnapshot.java
+// -----------------------------------------------------------------------------
+// Instantánea binaria del catálogo junto a horarios.json (horarios.bin), para no
+// reinterpretar el JSON en cada arranque. Se regenera sola cuando el contenido
+// del JSON cambia o si no se puede leer. La fecha no sirve para eso (una copia
+// o un checkout pueden dejar otro contenido con la misma fecha y tamaño), así
+// que se guarda el tamaño y una huella FNV-1a de 64 bits de los bytes del JSON;
+// leerlo entero para la huella es mucho más barato que interpretarlo.
+//
+// También se guardan las entradas descartadas del JSON (CatalogueReader), para
+// avisar de lo mismo se cargue de la instantánea o del JSON.
+//
+// Formato (big-endian):
+//   cabecera   MAGIC, VERSION, tamaño y huella del JSON de origen
+//   avisos     nº, y por cada uno longitud + UTF-8
+//   textos     nº, y por cada uno longitud + UTF-8 (asignatura, grupo, tipo,
+//              curso y semestre; cada texto distinto una sola vez)
+//   sesiones   nº, y luego una columna por campo: día (byte), inicio y fin en
+//              minutos (short), índices de texto (int, -1 = null) y plazas
+//              del grupo para el tipo de cada sesión (int, -1 = sin límite)
+//
+// Se lee con el fichero mapeado en memoria y las columnas se copian a arrays
+// primitivos (así no queda mapeado: en Windows no se podría reemplazar). Las
+// sesiones de cada grupo son vistas sobre esas columnas: un Session sólo se
+// crea cuando alguien lo pide.
+// -----------------------------------------------------------------------------
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+final class CatalogueSnapshot {
+    private static final int MAGIC = 0x43554144;   // "CUAD"
+    private static final int VERSION = 4;
+    private static final int NULL = -1;
+
+    private CatalogueSnapshot() {}
+
+    /** Fichero de la instantánea de un catálogo (mismo nombre, extensión .bin). */
+    static File fileFor(File json) {
+        String name = json.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(json.getAbsoluteFile().getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".bin");
+    }
+
+    /**
+     * Catálogo de {@code json}: desde la instantánea si está al día; si no, se lee
+     * el JSON y se vuelve a escribir la instantánea (si no se puede, se sigue igual).
+     * Las entradas del JSON descartadas se anotan en {@code problems}.
+     */
+    static List<Scheduler.Subject> load(File json, List<String> problems) throws IOException {
+        File bin = fileFor(json);
+        // La huella antes de leer el JSON: si cambia mientras se lee, la próxima carga no coincidirá
+        long length = json.length(), hash = contentHash(json);
+        if (bin.isFile()) {
+            try {
+                List<Scheduler.Subject> subjects = read(bin, length, hash, problems);
+                if (subjects != null) return subjects;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Instantánea " + bin.getName() + " ilegible, se regenera: " + e);
+            }
+        }
+        List<String> found = new ArrayList<>();
+        List<Scheduler.Subject> subjects = CatalogueReader.read(json, found);
+        problems.addAll(found);
+        try { write(bin, length, hash, subjects, found); }
+        catch (IOException e) { System.err.println("No se pudo escribir " + bin.getAbsolutePath() + ": " + e.getMessage()); }
+        return subjects;
+    }
+
+    /** Huella FNV-1a de 64 bits de los bytes de {@code json}. */
+    static long contentHash(File json) throws IOException {
+        long h = 0xcbf29ce484222325L;
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(json.toPath())) {
+            for (int n; (n = in.read(buf)) > 0; )
+                for (int i = 0; i < n; i++) h = (h ^ (buf[i] & 0xff)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /* ---------- Escritura ---------- */
+    static void write(File bin, long length, long hash, List<Scheduler.Subject> subjects, List<String> problems)
+            throws IOException {
+        // Agrupadas por asignatura y grupo: al releer se reagrupan igual
+        List<Scheduler.Session> sessions = new ArrayList<>();
+        List<Integer> seats = new ArrayList<>();
+        for (Scheduler.Subject subj : subjects)
+            for (Scheduler.Group g : subj.groups()) {
+                sessions.addAll(g.sessions());
+                for (Scheduler.Session s : g.sessions()) {
+                    int cap = g.capacity(s.tipo());
+                    seats.add(cap == Scheduler.Group.UNLIMITED ? NULL : cap);
+                }
+            }
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        int n = sessions.size();
+        int[][] text = new int[5][n];
+        for (int i = 0; i < n; i++) {
+            Scheduler.Session s = sessions.get(i);
+            text[0][i] = intern(ids, s.asignatura());
+            text[1][i] = intern(ids, s.grupo());
+            text[2][i] = intern(ids, s.tipo());
+            text[3][i] = intern(ids, s.curso());
+            text[4][i] = intern(ids, s.semestre());
+        }
+
+        // Fichero temporal + renombrado: nunca queda una instantánea a medias
+        Path tmp = Files.createTempFile(bin.getAbsoluteFile().getParentFile().toPath(), bin.getName(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(length);
+                out.writeLong(hash);
+                writeStrings(out, problems);
+                writeStrings(out, ids.keySet());
+                out.writeInt(n);
+                for (Scheduler.Session s : sessions) out.writeByte(WeekMask.dayIndex(s.day()));
+                for (Scheduler.Session s : sessions) out.writeShort(minutes(s.start()));
+                for (Scheduler.Session s : sessions) out.writeShort(minutes(s.end()));
+                for (int[] col : text) for (int v : col) out.writeInt(v);
+                for (int v : seats) out.writeInt(v);
+            }
+            try {
+                Files.move(tmp, bin.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(tmp, bin.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+    }
+
+    private static int intern(Map<String, Integer> ids, String s) {
+        return s == null ? NULL : ids.computeIfAbsent(s, k -> ids.size());
+    }
+
+    private static int minutes(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    /* ---------- Lectura ---------- */
+    /**
+     * Catálogo de la instantánea, o null si es de otra versión o de un JSON con
+     * otro tamaño o huella (contentHash). Sus avisos se añaden a {@code problems}.
+     */
+    static List<Scheduler.Subject> read(File bin, long length, long hash, List<String> problems) throws IOException {
+        Columns c;
+        String[] warnings;
+        try (FileChannel ch = FileChannel.open(bin.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            if (buf.getLong() != length || buf.getLong() != hash) return null;
+            warnings = readStrings(buf);
+            c = new Columns(buf);
+        }
+        List<Scheduler.Subject> subjects = c.subjects();
+        problems.addAll(List.of(warnings));
+        return subjects;
+    }
+
+    private static String[] readStrings(ByteBuffer buf) {
+        String[] strings = new String[buf.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] b = new byte[buf.getInt()];
+            buf.get(b);
+            strings[i] = new String(b, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /* ---------- Sesiones como columnas primitivas ---------- */
+    private static final class Columns {
+        final String[] strings;
+        final byte[] day;
+        final short[] start, end;
+        final int[] subject, group, tipo, curso, semestre, seats;
+
+        Columns(ByteBuffer buf) {
+            strings = readStrings(buf);
+            int n = buf.getInt();
+            day = new byte[n];
+            buf.get(day);
+            start = new short[n];
+            end = new short[n];
+            buf.asShortBuffer().get(start).get(end);
+            buf.position(buf.position() + 4 * n);
+            int[][] text = new int[5][n];
+            for (int[] col : text) {
+                buf.asIntBuffer().get(col);
+                buf.position(buf.position() + 4 * n);
+            }
+            subject = text[0]; group = text[1]; tipo = text[2]; curso = text[3]; semestre = text[4];
+            seats = new int[n];
+            buf.asIntBuffer().get(seats);
+        }
+
+        String str(int id) { return id == NULL ? null : strings[id]; }
+
+        Scheduler.Session session(int i) {
+            return new Scheduler.Session(DayOfWeek.of(day[i] + 1),
+                    LocalTime.of(start[i] / 60, start[i] % 60), LocalTime.of(end[i] / 60, end[i] % 60),
+                    str(subject[i]), str(group[i]), str(tipo[i]), str(curso[i]), str(semestre[i]));
+        }
+
+        // Mismo agrupado que CatalogueReader: asignatura y grupo por orden de aparición
+        List<Scheduler.Subject> subjects() {
+            Map<Integer, Map<Integer, List<Integer>>> tmp = new LinkedHashMap<>();
+            for (int i = 0; i < day.length; i++)
+                tmp.computeIfAbsent(subject[i], k -> new LinkedHashMap<>())
+                        .computeIfAbsent(group[i], k -> new ArrayList<>()).add(i);
+            List<Scheduler.Subject> res = new ArrayList<>(tmp.size());
+            tmp.forEach((asig, groups) -> {
+                List<Scheduler.Group> gl = new ArrayList<>(groups.size());
+                groups.forEach((code, rows) -> {
+                    Map<String, Integer> caps = new HashMap<>();
+                    for (int row : rows)
+                        if (seats[row] != NULL) caps.put(Scheduler.normalizeTipo(str(tipo[row])), seats[row]);
+                    gl.add(new Scheduler.Group(str(code), new SessionView(this, rows.stream().mapToInt(Integer::intValue).toArray()),
+                            caps));
+                });
+                res.add(new Scheduler.Subject(str(asig), gl));
+            });
+            return res;
+        }
+    }
+
+    /** Sesiones de un grupo: filas de las columnas, convertidas a Session al pedirlas. */
+    private static final class SessionView extends AbstractList<Scheduler.Session> implements RandomAccess {
+        private final Columns columns;
+        private final int[] rows;
+
+        SessionView(Columns columns, int[] rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        @Override public Scheduler.Session get(int i) { return columns.session(rows[i]); }
+
+        @Override public int size() { return rows.length; }
+    }
+}
@@ -0,0 +1,90 @@
+// CatalogueWatcher.java
+// -----------------------------------------------------------------------------
+// Recarga en caliente de horarios.json: un WatchService sobre su carpeta avisa
+// cuando el fichero se crea o modifica (los editores suelen guardar con un
+// renombrado), se espera a que deje de cambiar y se vuelve a cargar en un hilo
+// propio. Quien escucha recompila y publica el catálogo nuevo de golpe; las
+// búsquedas en curso terminan con el que tenían.
+// -----------------------------------------------------------------------------
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+final class CatalogueWatcher implements Closeable {
+    // Margen para que el editor termine de escribir antes de leer
+    private static final long QUIET_MS = 300;
+
+    interface Listener {
+        /** Catálogo recién leído (en el hilo del vigilante) y entradas descartadas. */
+        void reloaded(List<Scheduler.Subject> catalogue, List<String> problems);
+
+        /** El fichero nuevo no se pudo leer; se sigue con el catálogo anterior. */
+        void failed(Exception e);
+    }
+
+    private final File json;
+    private final WatchService watcher;
+    private final Listener listener;
+    private final Thread thread;
+
+    private CatalogueWatcher(File json, Listener listener) throws IOException {
+        this.json = json.getAbsoluteFile();
+        this.listener = listener;
+        Path dir = this.json.getParentFile().toPath();
+        this.watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::loop, "cuadreitor-recarga");
+        this.thread.setDaemon(true);
+    }
+
+    /** Empieza a vigilar {@code json}; cada cambio se notifica a {@code listener}. */
+    static CatalogueWatcher start(File json, Listener listener) throws IOException {
+        CatalogueWatcher w = new CatalogueWatcher(json, listener);
+        w.thread.start();
+        return w;
+    }
+
+    @Override public void close() throws IOException {
+        watcher.close();
+    }
+
+    private void loop() {
+        try {
+            while (true) {
+                if (!touched(watcher.take())) continue;
+                // Agrupar la ráfaga de eventos de un mismo guardado
+                WatchKey more;
+                while ((more = watcher.poll(QUIET_MS, TimeUnit.MILLISECONDS)) != null) touched(more);
+                if (!json.isFile()) continue;
+                try {
+                    List<String> problems = new ArrayList<>();
+                    List<Scheduler.Subject> catalogue = CatalogueSnapshot.load(json, problems);
+                    listener.reloaded(catalogue, problems);
+                } catch (Exception e) {
+                    listener.failed(e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // fin de la vigilancia
+        }
+    }
+
+    // true si alguno de los eventos es sobre horarios.json
+    private boolean touched(WatchKey key) {
+        boolean hit = false;
+        for (WatchEvent<?> ev : key.pollEvents())
+            if (ev.context() instanceof Path p && p.getFileName().toString().equals(json.getName())) hit = true;
+        key.reset();
+        return hit;
+    }
+}
@@ -0,0 +1,147 @@
+// ChocoEngine.java
+// -----------------------------------------------------------------------------
+// Motor basado en Choco-solver. Cada dominio es una variable entera con el
+// índice del grupo elegido (los grupos que caen en días libres ya los quitó
+// CompiledCatalogue.prepare). Cada par de dominios que puede solaparse aporta una variable de
+// coste ligada por una restricción de tabla, y se minimiza la suma de todas.
+//
+// Búsqueda dom/wdeg con last-conflict, reinicios Luby y nogoods de reinicio.
+// Los valores se prueban en el orden del dominio (menor grado de conflicto
+// primero), como en el backtracking. Con empates en el óptimo puede devolver
+// otra combinación distinta.
+//
+// Con semillas (WarmStart) el total se acota desde el principio por la k-ésima:
+// tras excluir i < k soluciones sigue quedando una semilla por debajo.
+//
+// Con costes por día (Objective.soft) no se modela: la ocupación de cada día
+// depende de todos los grupos a la vez y no cabe en tablas por pares, así que
+// se resuelve con el backtracking, que los evalúa de forma incremental. Con sólo
+// solapes el coste es solapes·peso y basta con minimizar los solapes.
+//
+// Top-K: tras cada óptimo se prohíbe esa asignación exacta con una cláusula y
+// se vuelve a optimizar, hasta reunir k soluciones distintas. Cada alternativa
+// se resuelve en un modelo nuevo (las tablas se comparten): Solver.reset() quita
+// los criterios de parada, y los nogoods de reinicio aprendidos bajo la cota de
+// coste anterior seguirían en el modelo y podrían excluir empates válidos.
+// -----------------------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.search.loop.monitors.IMonitorDownBranch;
+import org.chocosolver.solver.search.restart.LubyCutoff;
+import org.chocosolver.solver.search.restart.Restarter;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.IntVar;
+
+final class ChocoEngine implements ScheduleEngine {
+    private static final int LUBY_SCALE = 100;
+    private static final int MAX_RESTARTS = 100_000;
+
+    @Override
+    public List<Solution> solve(SearchProblem problem, int k, SearchMonitor monitor) {
+        if (problem.objective().soft()) return new Backtracker(problem, monitor).solve(k);
+        int weight = problem.objective().overlaps();
+        List<int[]> domains = problem.domains();
+        int[][] conflicts = problem.conflicts();
+        int D = domains.size();
+
+        // Valores por dominio (prepare ya quitó los grupos con clase en días libres)
+        int[][] values = domains.toArray(int[][]::new);
+        for (int[] v : values) if (v.length == 0) return List.of();
+
+        // Coste por par de dominios: tabla (i, j, solapes) sólo si algún par choca
+        List<Pair> pairs = new ArrayList<>();
+        int upper = 0;
+        for (int d = 0; d < D; d++) {
+            for (int e = d + 1; e < D; e++) {
+                int max = 0;
+                Tuples t = new Tuples(true);
+                for (int i = 0; i < values[d].length; i++)
+                    for (int j = 0; j < values[e].length; j++) {
+                        int c = conflicts[values[d][i]][values[e][j]];
+                        t.add(i, j, c);
+                        max = Math.max(max, c);
+                    }
+                if (max == 0) continue;
+                pairs.add(new Pair(d, e, t, max));
+                upper += max;
+            }
+        }
+        // Cota de coste → cota de solapes (con peso 0 cualquier total vale lo mismo)
+        int bound = weight == 0 ? Integer.MAX_VALUE : problem.seedBound(k) / weight;
+
+        List<Solution> found = new ArrayList<>();
+        List<int[]> excluded = new ArrayList<>();
+        while (found.size() < k && !monitor.isCancelled()) {
+            int[] best = optimum(values, pairs, upper, bound, excluded, weight, monitor);
+            if (best == null) break;
+            int bestTotal = best[D];
+            best = Arrays.copyOf(best, D);
+            found.add(new Solution(weight * bestTotal, bestTotal, toIds(values, best)));
+            excluded.add(best);
+        }
+        return found;
+    }
+
+    private record Pair(int d, int e, Tuples table, int max) {}
+
+    // Mejor asignación (índices en values, con los solapes en la última posición)
+    // distinta de todas las de excluded, o null si no hay o se canceló antes
+    private static int[] optimum(int[][] values, List<Pair> pairs, int upper, int bound, List<int[]> excluded,
+                                 int weight, SearchMonitor monitor) {
+        int D = values.length;
+        Model model = new Model("cuadreitor");
+        IntVar[] x = new IntVar[D];
+        for (int d = 0; d < D; d++) x[d] = model.intVar("x" + d, 0, values[d].length - 1);
+        List<IntVar> costs = new ArrayList<>(pairs.size());
+        for (Pair p : pairs) {
+            IntVar c = model.intVar("c" + p.d() + "_" + p.e(), 0, p.max());
+            model.table(new IntVar[]{x[p.d()], x[p.e()], c}, p.table()).post();
+            costs.add(c);
+        }
+        IntVar total = model.intVar("solapes", 0, upper);
+        if (costs.isEmpty()) model.arithm(total, "=", 0).post();
+        else model.sum(costs.toArray(new IntVar[0]), "=", total).post();
+        if (bound < upper) model.arithm(total, "<=", bound).post();
+        // Alternativas ya dadas: al menos un dominio distinto de cada una
+        for (int[] prev : excluded) {
+            BoolVar[] differs = new BoolVar[D];
+            for (int d = 0; d < D; d++) differs[d] = model.arithm(x[d], "!=", prev[d]).reify();
+            model.or(differs).post();
+        }
+        model.setObjective(Model.MINIMIZE, total);
+
+        Solver solver = model.getSolver();
+        solver.setSearch(Search.lastConflict(Search.domOverWDegSearch(x)));
+        solver.addRestarter(new Restarter(new LubyCutoff(LUBY_SCALE),
+                limit -> solver.getFailCount() >= limit, MAX_RESTARTS, true));
+        solver.setNoGoodRecordingFromRestarts();
+        solver.addStopCriterion(monitor::isCancelled);
+        solver.plugMonitor(new IMonitorDownBranch() {
+            @Override public void beforeDownBranch(boolean left) { if (left) monitor.node(); }
+        });
+
+        int[] best = null;
+        while (solver.solve()) {
+            best = new int[D + 1];
+            for (int d = 0; d < D; d++) best[d] = x[d].getValue();
+            best[D] = total.getValue();
+            monitor.improved(new Solution(weight * best[D], best[D], toIds(values, Arrays.copyOf(best, D))));
+            if (best[D] == 0) break;
+        }
+        monitor.counters(solver.getFailCount(), 0);
+        return best;
+    }
+
+    private static int[] toIds(int[][] values, int[] idx) {
+        int[] ids = new int[idx.length];
+        for (int d = 0; d < idx.length; d++) ids[d] = values[d][idx[d]];
+        return ids;
+    }
+}
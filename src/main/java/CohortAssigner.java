@@ -0,0 +1,340 @@
+// CohortAssigner.java
+// -----------------------------------------------------------------------------
+// Reparto de una promoción entera en grupos con plazas (modo --cohorte): cada
+// alumno pide lo mismo que en una consulta normal y el reparto minimiza los
+// solapes de todos juntos sin pasar de las plazas de ningún grupo y, a igualdad,
+// llena los grupos por igual.
+//
+// Plazas: por (asignatura, grupo, tipo), con las de Group.capacity(tipo). Quien
+// bloquea teoría y prácticas al mismo subgrupo ocupa una de cada tipo de ese
+// grupo, igual que quien las elige por separado, así que ambos cuentan igual.
+//
+// 1) Los alumnos con la misma consulta (forma canónica, como SolutionCache) son
+//    una cohorte y se preparan una sola vez, sin dominancia: los grupos dominados
+//    también dan plazas. Los pesos por día no se atienden, sólo los solapes.
+//    Las consultas idénticas tal cual llegan no se vuelven a validar, y las
+//    cohortes se preparan en paralelo; las plazas se numeran después, en orden
+//    de llegada, así que el reparto no depende del número de hilos.
+// 2) Colocación por orden de llegada: cada cohorte guarda su mejor asignación
+//    (Backtracker sobre el problema reducido) con los grupos que aún tienen
+//    plaza y, dentro de cada clase de Symmetry, se elige el miembro menos lleno.
+//    Sólo se vuelve a buscar cuando alguna clase de esa asignación se queda sin
+//    plazas. Si ya no cabe, se busca sin mirar plazas y se anota el sobrecupo.
+// 3) Reparación hasta que no mejora nada (o MAX_PASSES vueltas): por cada
+//    alumno se prueba a cambiar un grupo por otro de su dominio con plaza, y se
+//    acepta si baja (sobrecupo, solapes, desequilibrio) en ese orden; si aun así
+//    tiene más solapes que la mejor de su cohorte con las plazas de ahora, se le
+//    pasa entero a esa. Cada cambio se evalúa con una fila de la matriz de
+//    conflictos: O(dominios).
+//
+// Desequilibrio: Σ ocupadas²/plazas de los grupos con límite; pasar a alguien a
+// un grupo relativamente más vacío siempre lo baja.
+// -----------------------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class CohortAssigner {
+    static final int MAX_PASSES = 50;
+
+    record Student(String id, ScheduleQuery query) {}
+
+    /** Reparto de un alumno: grupos y solapes, o el motivo por el que no se pudo. */
+    record Placement(String id, Scheduler.Prepared prepared, Solution solution, String error) {
+        /** Grupos del alumno en el orden de sus asignaturas (null si no hay reparto). */
+        List<Scheduler.Group> groups() { return solution == null ? null : prepared.groupsOf(solution); }
+    }
+
+    /** Ocupación de una plaza; capacity es Group.UNLIMITED si no tiene límite. */
+    record Seat(String subject, String code, String tipo, int capacity, int taken) {}
+
+    record Result(List<Placement> placements, List<Seat> seats, long conflicts, int overflow, int moves, long millis) {}
+
+    private record SeatKey(String subject, String code, String tipo) {}
+
+    private final CompiledCatalogue catalogue;
+    private final Map<SeatKey, Integer> seatIndex = new LinkedHashMap<>();
+    private final Map<CompiledCatalogue.Variant, int[][]> seatsByGroup = new HashMap<>();   // por id en la variante
+    private final List<Integer> capacities = new ArrayList<>();
+    private int[] capacity, load;
+
+    CohortAssigner(CompiledCatalogue catalogue) {
+        this.catalogue = catalogue;
+    }
+
+    /** Reparte a todos los alumnos; el resultado sigue el orden de {@code students}. */
+    Result assign(List<Student> students) {
+        long t0 = System.nanoTime();
+        Map<ScheduleQuery, SolutionCache.Key> keyOf = new HashMap<>();
+        Map<SolutionCache.Key, ScheduleQuery> distinct = new LinkedHashMap<>();
+        SolutionCache.Key[] keys = new SolutionCache.Key[students.size()];
+        String[] error = new String[students.size()];
+        for (int s = 0; s < students.size(); s++) {
+            ScheduleQuery q = students.get(s).query();
+            ScheduleQuery plain = new ScheduleQuery(q.subjects(), q.semester(), q.freeDays(), q.skipPractices(),
+                    q.lockSameSubgroup());
+            try {
+                keys[s] = keyOf.computeIfAbsent(plain, x -> {
+                    ScheduleService.validate(catalogue, x);
+                    return SolutionCache.Key.of(catalogue.version(), x, ScheduleEngine.BACKTRACKING, 1);
+                });
+                distinct.putIfAbsent(keys[s], plain);
+            } catch (IllegalArgumentException e) {
+                error[s] = e.getMessage();
+            }
+        }
+        List<Scheduler.Prepared> prepared = distinct.values().parallelStream()
+                .map(q -> catalogue.prepare(q, null, Integer.MAX_VALUE)).toList();
+        Map<SolutionCache.Key, Cohort> cohorts = new HashMap<>();
+        Iterator<Scheduler.Prepared> it = prepared.iterator();
+        for (SolutionCache.Key key : distinct.keySet()) cohorts.put(key, new Cohort(it.next()));
+        Cohort[] cohortOf = new Cohort[students.size()];
+        for (int s = 0; s < students.size(); s++) {
+            if (keys[s] == null) continue;
+            Cohort c = cohorts.get(keys[s]);
+            if (c.prepared == null) error[s] = "No quedan sesiones tras aplicar los filtros.";
+            else cohortOf[s] = c;
+        }
+        capacity = capacities.stream().mapToInt(Integer::intValue).toArray();
+        load = new int[capacity.length];
+
+        // Colocación inicial, por orden de llegada
+        int[][] pick = new int[students.size()][];
+        for (int s = 0; s < students.size(); s++) {
+            if (cohortOf[s] == null) continue;
+            pick[s] = cohortOf[s].place();
+            if (pick[s] == null) error[s] = "No hay combinación válida que respete los días libres y el semestre seleccionados.";
+            else occupy(cohortOf[s], pick[s], +1);
+        }
+
+        // Reparación
+        int moves = 0;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            int before = moves;
+            for (int s = 0; s < students.size(); s++) {
+                if (pick[s] == null) continue;
+                Cohort c = cohortOf[s];
+                moves += c.improve(pick[s]);
+                if (c.best() != null && !c.overflowing && c.conflicts(pick[s]) > c.bestConflicts) {
+                    occupy(c, pick[s], -1);
+                    int[] next = c.place();
+                    if (next != null && c.conflicts(next) < c.conflicts(pick[s])) {
+                        pick[s] = next;
+                        moves++;
+                    }
+                    occupy(c, pick[s], +1);
+                }
+            }
+            if (moves == before) break;
+        }
+
+        List<Placement> placements = new ArrayList<>(students.size());
+        long total = 0;
+        for (int s = 0; s < students.size(); s++) {
+            String id = students.get(s).id();
+            if (pick[s] == null) {
+                placements.add(new Placement(id, cohortOf[s] == null ? null : cohortOf[s].prepared, null, error[s]));
+                continue;
+            }
+            Cohort c = cohortOf[s];
+            int conflicts = c.conflicts(pick[s]);
+            total += conflicts;
+            placements.add(new Placement(id, c.prepared, new Solution(conflicts, conflicts, pick[s].clone()), null));
+        }
+        List<Seat> seats = new ArrayList<>(seatIndex.size());
+        int overflow = 0;
+        for (Map.Entry<SeatKey, Integer> e : seatIndex.entrySet()) {
+            int i = e.getValue();
+            SeatKey k = e.getKey();
+            seats.add(new Seat(k.subject(), k.code(), k.tipo(), capacity[i], load[i]));
+            overflow += Math.max(0, load[i] - capacity[i]);
+        }
+        return new Result(placements, seats, total, overflow, moves, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    private void occupy(Cohort c, int[] ids, int delta) {
+        for (int id : ids) for (int seat : c.seats[id]) load[seat] += delta;
+    }
+
+    private boolean free(int seat) { return load[seat] < capacity[seat]; }
+
+    private boolean allFree(int[] seats) {
+        for (int seat : seats) if (!free(seat)) return false;
+        return true;
+    }
+
+    // Coste de equilibrio de entrar (+1) en las plazas de un grupo: Σ (2·ocupadas+1)/plazas
+    private double fill(int[] seats, int delta) {
+        double f = 0;
+        for (int seat : seats)
+            if (capacity[seat] != Scheduler.Group.UNLIMITED)
+                f += (2.0 * load[seat] + delta) / Math.max(1, capacity[seat]);
+        return f;
+    }
+
+    /* ---------- Alumnos con la misma consulta ---------- */
+    private final class Cohort {
+        final Scheduler.Prepared prepared;
+        final int[][] domains;      // dominios completos (todos los miembros de cada clase), en el orden del problema
+        final int[] repOf;          // representante de la clase de cada grupo local
+        final int[][] seats;        // plazas que ocupa cada grupo local
+        int[] best;                 // mejor asignación (representantes) con las plazas de cuando se buscó
+        int bestConflicts;
+        boolean overflowing;        // best se buscó sin mirar plazas: el dominio full no tenía sitio
+        int full;
+        boolean impossible;         // no hay combinación ni sin mirar plazas (días libres)
+
+        Cohort(Scheduler.Prepared prepared) {
+            this.prepared = prepared;
+            if (prepared == null) {
+                domains = null;
+                repOf = null;
+                seats = null;
+                return;
+            }
+            SearchProblem p = prepared.problem();
+            int n = p.size();
+            repOf = new int[n];
+            seats = new int[n][];
+            int[][] byGroup = seatsByGroup.computeIfAbsent(prepared.variant(), v -> new int[v.size()][]);
+            domains = new int[p.domains().size()][];
+            for (int d = 0; d < domains.length; d++) {
+                List<Integer> full = new ArrayList<>();
+                for (int rep : p.domains().get(d))
+                    for (int id : prepared.classes()[rep]) {
+                        full.add(id);
+                        repOf[id] = rep;
+                        int gid = prepared.groupIds()[id];
+                        if (byGroup[gid] == null) byGroup[gid] = seatsOf(prepared.global().get(id));
+                        seats[id] = byGroup[gid];
+                    }
+                domains[d] = full.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        private int[] seatsOf(Scheduler.Group g) {
+            List<Integer> out = new ArrayList<>();
+            for (Scheduler.Session s : g.sessions()) {
+                SeatKey k = new SeatKey(s.asignatura(), g.code(), Scheduler.normalizeTipo(s.tipo()));
+                Integer i = seatIndex.get(k);
+                if (i == null) {
+                    seatIndex.put(k, i = capacities.size());
+                    capacities.add(g.capacity(s.tipo()));
+                }
+                if (!out.contains(i)) out.add(i);
+            }
+            return out.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Grupos para un alumno más (sin ocuparlos), o null si no hay combinación. */
+        int[] place() {
+            if (best() == null) return null;
+            int[] out = new int[best.length];
+            for (int d = 0; d < best.length; d++) {
+                int chosen = -1;
+                double score = Double.MAX_VALUE;
+                for (int id : prepared.classes()[best[d]]) {
+                    if (!overflowing && !allFree(seats[id])) continue;
+                    double f = overflowing ? overflowOf(seats[id]) * 1e9 + fill(seats[id], 1) : fill(seats[id], 1);
+                    if (f < score) {
+                        score = f;
+                        chosen = id;
+                    }
+                }
+                out[d] = chosen;
+            }
+            return out;
+        }
+
+        private int overflowOf(int[] seats) {
+            int o = 0;
+            for (int seat : seats) if (!free(seat)) o++;
+            return o;
+        }
+
+        /** Mejor asignación con las plazas de ahora (se vuelve a buscar sólo si se ha quedado sin sitio). */
+        int[] best() {
+            if (impossible || best != null && stillFits()) return best;
+            SearchProblem p = prepared.problem();
+            List<int[]> open = new ArrayList<>(p.domains().size());
+            overflowing = false;
+            for (int d = 0; d < p.domains().size(); d++) {
+                int[] keep = Arrays.stream(p.domains().get(d)).filter(this::hasRoom).toArray();
+                if (keep.length == 0 && !overflowing) {
+                    overflowing = true;
+                    full = d;
+                }
+                open.add(keep);
+            }
+            SearchProblem q = overflowing ? p : new SearchProblem(open, p.conflicts(), p.masks(), p.freeDayBits());
+            List<Solution> sols = new Backtracker(q, new SearchMonitor()).solve(1);
+            if (sols.isEmpty()) {
+                // Con algún dominio abierto en cada uno siempre hay asignación: sólo falla sin grupos admisibles
+                impossible = true;
+                return best = null;
+            }
+            bestConflicts = sols.get(0).conflicts();
+            return best = sols.get(0).ids();
+        }
+
+        private boolean stillFits() {
+            // Sin plazas vale mientras ese dominio siga lleno (la reparación puede liberar sitio)
+            if (overflowing) return Arrays.stream(prepared.problem().domains().get(full)).noneMatch(this::hasRoom);
+            for (int rep : best) if (!hasRoom(rep)) return false;
+            return true;
+        }
+
+        private boolean hasRoom(int rep) {
+            for (int id : prepared.classes()[rep]) if (allFree(seats[id])) return true;
+            return false;
+        }
+
+        int conflicts(int[] ids) {
+            int[][] conf = prepared.problem().conflicts();
+            int c = 0;
+            for (int i = 0; i < ids.length; i++)
+                for (int j = i + 1; j < ids.length; j++) c += conf[ids[i]][ids[j]];
+            return c;
+        }
+
+        /** Cambios de un grupo que mejoran (sobrecupo, solapes, equilibrio); devuelve cuántos se hicieron. */
+        int improve(int[] ids) {
+            int[][] conf = prepared.problem().conflicts();
+            int moves = 0;
+            for (int d = 0; d < ids.length; d++) {
+                int a = ids[d];
+                int[] rowA = conf[a];
+                int overA = 0;
+                for (int seat : seats[a]) if (load[seat] > capacity[seat]) overA++;
+                double leave = fill(seats[a], -1);
+                int bestB = -1, bestOver = 0, bestConf = 0;
+                double bestBal = 0;
+                for (int b : domains[d]) {
+                    if (b == a || !allFree(seats[b])) continue;
+                    int[] rowB = conf[b];
+                    int dc = 0;
+                    for (int e = 0; e < ids.length; e++) if (e != d) dc += rowB[ids[e]] - rowA[ids[e]];
+                    int dOver = -overA;
+                    double dBal = fill(seats[b], 1) - leave;
+                    if (dOver < bestOver || dOver == bestOver && (dc < bestConf || dc == bestConf && dBal < bestBal - 1e-12)) {
+                        bestB = b;
+                        bestOver = dOver;
+                        bestConf = dc;
+                        bestBal = dBal;
+                    }
+                }
+                if (bestB < 0) continue;
+                for (int seat : seats[a]) load[seat]--;
+                for (int seat : seats[bestB]) load[seat]++;
+                ids[d] = bestB;
+                moves++;
+            }
+            return moves;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// CohortRunner.java
+// -----------------------------------------------------------------------------
+// Reparto de una promoción con plazas (java -jar Scheduler.jar --cohorte ...).
+// Lee un fichero de alumnos, una consulta por línea con el formato del modo por
+// lotes (ver ScheduleJson), los reparte todos a la vez con CohortAssigner y
+// escribe el reparto de cada uno en una línea JSON, en el mismo orden de
+// entrada. Opcionalmente escribe la ocupación de cada grupo.
+// -----------------------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+final class CohortRunner {
+    private static final String USAGE = """
+            Uso: java -jar Scheduler.jar --cohorte <alumnos.jsonl> [opciones]
+              --salida <fichero>     reparto NDJSON, un alumno por línea (por defecto, salida estándar)
+              --ocupacion <fichero>  plazas ocupadas de cada grupo, en JSON
+              --horarios <fichero>   catálogo (por defecto, horarios.json)""";
+
+    private CohortRunner() {}
+
+    /** @return código de salida del proceso */
+    static int run(String[] args) {
+        Path input = null, output = null, occupancy = null;
+        File horarios = new File("horarios.json");
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--salida" -> output = Path.of(args[++i]);
+                    case "--ocupacion" -> occupancy = Path.of(args[++i]);
+                    case "--horarios" -> horarios = new File(args[++i]);
+                    default -> {
+                        if (input != null || args[i].startsWith("--")) throw new IllegalArgumentException(args[i]);
+                        input = Path.of(args[i]);
+                    }
+                }
+            }
+            if (input == null) throw new IllegalArgumentException("falta el fichero de alumnos");
+        } catch (RuntimeException e) {
+            System.err.println("Argumento no válido: " + e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        CompiledCatalogue catalogue;
+        try { catalogue = new CompiledCatalogue(Scheduler.loadCatalogue(horarios)); }
+        catch (Exception e) {
+            System.err.println("No se pudo cargar " + horarios.getAbsolutePath() + ": " + e.getMessage());
+            return 1;
+        }
+
+        // Las líneas que no se pueden leer salen como ERROR en su sitio y no entran en el reparto
+        List<CohortAssigner.Student> students = new ArrayList<>();
+        List<ScheduleJson.PlacementOut> rejected = new ArrayList<>();
+        try {
+            int lineNo = 0;
+            for (String line : Files.readAllLines(input, StandardCharsets.UTF_8)) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                String id = "linea-" + lineNo;
+                try {
+                    ScheduleJson.Request req = ScheduleJson.MAPPER.readValue(line, ScheduleJson.Request.class);
+                    if (req.id() != null) id = req.id();
+                    students.add(new CohortAssigner.Student(id, req.toQuery()));
+                    rejected.add(null);
+                } catch (Exception e) {
+                    rejected.add(new ScheduleJson.PlacementOut(id, "ERROR", e.getMessage(), null, null));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo leer " + input + ": " + e.getMessage());
+            return 1;
+        }
+
+        CohortAssigner.Result r = new CohortAssigner(catalogue).assign(students);
+        try (Writer out = output == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            PrintWriter pw = new PrintWriter(out);
+            int next = 0;
+            for (ScheduleJson.PlacementOut p : rejected)
+                pw.println(ScheduleJson.MAPPER.writeValueAsString(
+                        p != null ? p : ScheduleJson.placement(r.placements().get(next++))));
+            pw.flush();
+            if (occupancy != null)
+                ScheduleJson.MAPPER.writerWithDefaultPrettyPrinter().writeValue(occupancy.toFile(),
+                        r.seats().stream().map(ScheduleJson::seat).toList());
+        } catch (IOException e) {
+            System.err.println("Error en el reparto: " + e.getMessage());
+            return 1;
+        }
+        System.err.printf("%d alumnos repartidos en %d ms: %d solapes en total, %d plazas de más, %d cambios de reparación%n",
+                students.size(), r.millis(), r.conflicts(), r.overflow(), r.moves());
+        return 0;
+    }
+}
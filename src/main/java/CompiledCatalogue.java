@@ -0,0 +1,270 @@
+// CompiledCatalogue.java
+// -----------------------------------------------------------------------------
+// Catálogo compilado una vez por semestre y variante (bloqueo de subgrupo o
+// mezcla por tipo): filtrado, "sin prácticas" y expansión por tipo ya
+// aplicados a cada asignatura, ids de grupo estables y máscaras semanales.
+//
+// No hay matriz de conflictos global: crecería con N² (y no cabría en un array
+// pasados unos 65.000 grupos). Cada consulta sólo elige sus unidades y cruza
+// las máscaras de sus grupos, O(elegidos²) comparaciones de máscaras que
+// cuestan lo mismo que leer esos pares de una tabla ya hecha.
+// Las variantes se compilan la primera vez que se piden y se comparten entre
+// hilos (la ventana, el modo por lotes y el servidor).
+//
+// Recarga (reload): las variantes ya compiladas se recompilan a partir de las
+// anteriores; las asignaturas que no han cambiado conservan sus unidades y
+// máscaras, y sólo se compilan las máscaras de los grupos nuevos.
+//
+// version(): huella del contenido del catálogo (FNV-1a de 64 bits sobre cada
+// campo de cada sesión, en orden), la misma entre ejecuciones. Sirve de clave
+// para no reutilizar resultados de un catálogo distinto (SolutionCache).
+//
+// Unidades por asignatura:
+//   • bloqueo:        la asignatura entera, y su versión sin prácticas (SP)
+//   • mezcla por tipo: una unidad por tipo; con SP se omiten las de prácticas
+// Se construyen con las mismas funciones que el flujo original, así que los
+// grupos, su orden y el orden de las asignaturas son los mismos.
+// -----------------------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class CompiledCatalogue {
+    private final List<Scheduler.Subject> catalogue;
+    private final Map<String, Integer> position = new HashMap<>();
+    private final Map<String, Variant> variants = new ConcurrentHashMap<>();
+    private volatile Long version;
+
+    CompiledCatalogue(List<Scheduler.Subject> catalogue) {
+        this.catalogue = List.copyOf(catalogue);
+        for (int i = 0; i < this.catalogue.size(); i++) position.putIfAbsent(this.catalogue.get(i).name(), i);
+    }
+
+    List<Scheduler.Subject> catalogue() { return catalogue; }
+
+    /** Catálogo nuevo con las variantes ya compiladas rehechas de forma incremental. */
+    CompiledCatalogue reload(List<Scheduler.Subject> newCatalogue) {
+        CompiledCatalogue next = new CompiledCatalogue(newCatalogue);
+        variants.forEach((key, old) -> next.variants.put(key, new Variant(next.catalogue, old.semester, old.lock, old)));
+        return next;
+    }
+
+    /** Huella del contenido (se calcula la primera vez que se pide). */
+    long version() {
+        Long v = version;
+        if (v == null) version = v = fingerprint(catalogue);
+        return v;
+    }
+
+    static long fingerprint(List<Scheduler.Subject> catalogue) {
+        long h = 0xcbf29ce484222325L;
+        for (Scheduler.Subject s : catalogue) {
+            h = mix(h, s.name());
+            for (Scheduler.Group g : s.groups()) {
+                h = mix(h, g.code());
+                for (Scheduler.Session x : g.sessions()) {
+                    h = mix(h, g.capacity(x.tipo()));
+                    h = mix(h, x.day().getValue() * 2000 + x.start().toSecondOfDay() / 60);
+                    h = mix(h, x.end().toSecondOfDay() / 60);
+                    h = mix(mix(mix(mix(mix(h, x.asignatura()), x.grupo()), x.tipo()), x.curso()), x.semestre());
+                }
+                h = mix(h, -1);                 // fin de grupo
+            }
+            h = mix(h, -2);                     // fin de asignatura
+        }
+        return h;
+    }
+
+    private static long mix(long h, String s) {
+        if (s == null) return mix(h, -3);
+        for (int i = 0; i < s.length(); i++) h = mix(h, s.charAt(i));
+        return mix(h, -4);
+    }
+
+    private static long mix(long h, int v) {
+        return (h ^ v) * 0x100000001b3L;
+    }
+
+    boolean contains(String subject) { return position.containsKey(subject); }
+
+    /** Variante compilada (se compila la primera vez). */
+    Variant variant(String semester, boolean lockSameSubgroup) {
+        return variants.computeIfAbsent(semester + (lockSameSubgroup ? "/bloqueo" : "/tipo"),
+                k -> new Variant(catalogue, semester, lockSameSubgroup, null));
+    }
+
+    /** Problema de una consulta, o null si no queda ninguna sesión tras los filtros. */
+    Scheduler.Prepared prepare(ScheduleQuery q) {
+        return prepare(q, null, 1);
+    }
+
+    /** Igual, sembrando la búsqueda de k soluciones con el cálculo anterior (puede ser null). */
+    Scheduler.Prepared prepare(ScheduleQuery q, WarmStart warm, int k) {
+        return prepare(q, warm, k, new SearchMonitor());
+    }
+
+    /**
+     * Igual, anotando en {@code monitor} la duración de cada fase: compilar (sólo la
+     * primera vez por variante), seleccionar, matriz, ordenar, simetrias (Symmetry) y,
+     * con arranque en caliente, semillas.
+     */
+    Scheduler.Prepared prepare(ScheduleQuery q, WarmStart warm, int k, SearchMonitor monitor) {
+        long t = System.nanoTime();
+        Variant v = variant(q.semester(), q.lockSameSubgroup());
+        monitor.phase("compilar", t);
+        t = System.nanoTime();
+
+        // Unidades de las asignaturas elegidas, en el orden del catálogo
+        List<String> selected = q.subjects().stream().filter(position::containsKey).distinct()
+                .sorted((a, b) -> Integer.compare(position.get(a), position.get(b))).toList();
+        List<Integer> units = new ArrayList<>();
+        for (String name : selected) {
+            int[] us = v.unitsOf(name, q.skipPractices().contains(name));
+            for (int u : us) units.add(u);
+        }
+        if (units.isEmpty()) return null;
+
+        // Ids locales consecutivos y matriz de la consulta. Los grupos con
+        // sesiones en días libres no entran en ningún dominio: nunca se eligen, así
+        // que se quitan aquí una vez en vez de saltarlos en cada nodo
+        int freeBits = WeekMask.dayBits(q.freeDays());
+        long skipped = 0;
+        List<Scheduler.Subject> subjects = new ArrayList<>(units.size());
+        List<Scheduler.Group> global = new ArrayList<>();
+        List<int[]> domains = new ArrayList<>(units.size());
+        int n = 0;
+        for (int u : units) n += v.unitSize(u);
+        int[] gid = new int[n];
+        WeekMask[] masks = new WeekMask[n];
+        for (int u : units) {
+            subjects.add(v.units.get(u));
+            int[] dom = new int[v.unitSize(u)];
+            int m = 0;
+            for (int i = 0; i < dom.length; i++) {
+                int id = global.size();
+                gid[id] = v.unitStart[u] + i;
+                masks[id] = v.masks[gid[id]];
+                global.add(v.groups.get(gid[id]));
+                if (masks[id].hasAnyDay(freeBits)) skipped++;
+                else dom[m++] = id;
+            }
+            domains.add(Arrays.copyOf(dom, m));
+        }
+        monitor.counters(0, skipped);
+        monitor.phase("seleccionar", t);
+        t = System.nanoTime();
+        int[][] conflicts = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++)
+                conflicts[i][j] = conflicts[j][i] = masks[i].conflictsWith(masks[j]);
+
+        monitor.phase("matriz", t);
+        t = System.nanoTime();
+        Scheduler.Prepared p = Scheduler.order(subjects, global, domains, masks, conflicts, freeBits, v, gid);
+        p = p.withProblem(p.problem().withObjective(q.objective()));
+        monitor.phase("ordenar", t);
+        t = System.nanoTime();
+        p = Symmetry.reduce(p, k == 1);
+        monitor.phase("simetrias", t);
+        if (warm != null) {
+            t = System.nanoTime();
+            p = p.withProblem(p.problem().withSeeds(warm.seeds(p, k)));
+            monitor.phase("semillas", t);
+        }
+        return p;
+    }
+
+    /* ---------- Un semestre en una variante, compilado ---------- */
+    static final class Variant {
+        final String semester;
+        final boolean lock;
+        final List<Scheduler.Subject> units = new ArrayList<>();
+        final List<Scheduler.Group> groups = new ArrayList<>();
+        final int[] unitStart;                  // id global del primer grupo de cada unidad (+ centinela)
+        final WeekMask[] masks;
+        private final Map<String, int[]> plain = new HashMap<>(), sp = new HashMap<>();
+        private final Map<String, Scheduler.Subject> sources = new HashMap<>();   // asignatura del catálogo
+        private final List<Integer> reused = new ArrayList<>();                    // id en previous, o -1
+
+        Variant(List<Scheduler.Subject> catalogue, String semester, boolean lock, Variant previous) {
+            this.semester = semester;
+            this.lock = lock;
+            for (Scheduler.Subject s : catalogue) {
+                sources.put(s.name(), s);
+                if (previous != null && s.equals(previous.sources.get(s.name()))) {
+                    reuse(previous, s.name());
+                    continue;
+                }
+                Scheduler.Subject base = Scheduler.filterSubjectBySemester(s, semester);
+                if (base == null) continue;
+                List<Scheduler.Subject> withSp = Scheduler.applySkipPractices(List.of(base), Set.of(base.name()));
+                if (lock) {
+                    plain.put(s.name(), new int[]{add(base)});
+                    sp.put(s.name(), withSp.isEmpty() ? new int[0] : new int[]{add(withSp.get(0))});
+                } else {
+                    // SP sólo quita las unidades de prácticas: las de teoría no cambian
+                    List<Scheduler.Subject> byTipo = Scheduler.expandSubjectsByTipo(List.of(base));
+                    Set<String> keep = new HashSet<>();
+                    for (Scheduler.Subject t : Scheduler.expandSubjectsByTipo(withSp)) keep.add(t.name());
+                    List<Integer> all = new ArrayList<>(), kept = new ArrayList<>();
+                    for (Scheduler.Subject t : byTipo) {
+                        int u = add(t);
+                        all.add(u);
+                        if (keep.contains(t.name())) kept.add(u);
+                    }
+                    plain.put(s.name(), all.stream().mapToInt(Integer::intValue).toArray());
+                    sp.put(s.name(), kept.stream().mapToInt(Integer::intValue).toArray());
+                }
+            }
+            unitStart = new int[units.size() + 1];
+            for (int u = 0; u < units.size(); u++) unitStart[u + 1] = unitStart[u] + units.get(u).groups().size();
+
+            int n = groups.size();
+            masks = new WeekMask[n];
+            int[] old = reused.stream().mapToInt(Integer::intValue).toArray();
+            for (int i = 0; i < n; i++) masks[i] = old[i] >= 0 ? previous.masks[old[i]] : WeekMask.of(groups.get(i));
+        }
+
+        int[] unitsOf(String subject, boolean skipPractices) {
+            int[] us = (skipPractices ? sp : plain).get(subject);
+            return us == null ? new int[0] : us;
+        }
+
+        int unitSize(int u) { return unitStart[u + 1] - unitStart[u]; }
+
+        int size() { return groups.size(); }
+
+
+        private int add(Scheduler.Subject unit) {
+            return add(unit, -1);
+        }
+
+        // oldStart: id en la variante anterior del primer grupo de la unidad (-1 si es nueva)
+        private int add(Scheduler.Subject unit, int oldStart) {
+            units.add(unit);
+            groups.addAll(unit.groups());
+            for (int i = 0; i < unit.groups().size(); i++) reused.add(oldStart < 0 ? -1 : oldStart + i);
+            return units.size() - 1;
+        }
+
+        // Asignatura sin cambios: mismas unidades (en el mismo orden) que en la variante anterior
+        private void reuse(Variant previous, String subject) {
+            int[] oldPlain = previous.plain.get(subject), oldSp = previous.sp.get(subject);
+            if (oldPlain == null) return;               // no tenía sesiones en este semestre
+            Map<Integer, Integer> moved = new HashMap<>();
+            TreeSet<Integer> all = new TreeSet<>();
+            for (int u : oldPlain) all.add(u);
+            for (int u : oldSp) all.add(u);
+            for (int u : all) moved.put(u, add(previous.units.get(u), previous.unitStart[u]));
+            plain.put(subject, Arrays.stream(oldPlain).map(moved::get).toArray());
+            sp.put(subject, Arrays.stream(oldSp).map(moved::get).toArray());
+        }
+    }
+}
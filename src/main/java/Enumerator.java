@@ -0,0 +1,249 @@
+// Enumerator.java
+// -----------------------------------------------------------------------------
+// Enumeración perezosa de todas las asignaciones de un SearchProblem con como
+// mucho maxConflicts solapes (respetando los días libres), como Stream: para
+// exportar opciones o contar qué grupos aparecen en alguna asignación válida.
+//
+// A diferencia de Backtracker no hay top-K ni cota que vaya bajando: se recorre
+// el árbol en profundidad con los dominios en su orden fijo y sólo se corta lo
+// que ya no puede quedar dentro del umbral (solapes de lo asignado más la suma
+// de los mínimos de los dominios pendientes, la misma comprobación hacia
+// delante). Cada tryAdvance baja hasta la siguiente hoja y se para ahí, así que
+// la memoria es O(dominios × grupos) por Spliterator, se pidan las que se pidan,
+// y limit() deja de buscar en cuanto tiene bastantes.
+//
+// trySplit (parallel()): se parte el nivel más alto que aún tiene grupos sin
+// probar. El Spliterator nuevo se queda con lo de antes (el camino actual y la
+// primera mitad de ese nivel) y éste deshace su camino hasta ese nivel y sigue
+// con la otra mitad, así que el orden es el de la búsqueda secuencial (ORDERED)
+// y limit() da las mismas. Con unordered() el paralelo no tiene que respetarlo.
+//
+// Con clases de equivalencia (Symmetry) cada hoja se expande en todas las
+// combinaciones de miembros de sus clases, que tienen los mismos solapes y el
+// mismo coste; la primera es la propia hoja.
+// -----------------------------------------------------------------------------
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+final class Enumerator {
+    private Enumerator() {}
+
+    /**
+     * Asignaciones con como mucho {@code maxConflicts} solapes, en orden DFS.
+     * {@code classes} (puede ser null) son las clases de Symmetry.reduce; hay que
+     * reducir sin dominancia, o faltarán las asignaciones con grupos dominados.
+     */
+    static Stream<Solution> all(SearchProblem problem, int maxConflicts, int[][] classes, SearchMonitor monitor) {
+        if (maxConflicts < 0) throw new IllegalArgumentException("El umbral de solapes debe ser ≥ 0: " + maxConflicts);
+        Stream<Solution> leaves = StreamSupport.stream(new Walk(new Tree(problem, maxConflicts, monitor)), false);
+        return classes == null ? leaves : leaves.flatMap(s -> expand(s, classes));
+    }
+
+    // Combinaciones de miembros de las clases de cada grupo (el último dominio varía más deprisa)
+    private static Stream<Solution> expand(Solution s, int[][] classes) {
+        int[] ids = s.ids();
+        long total = 1;
+        for (int id : ids) if (classes[id] != null) total = Math.multiplyExact(total, classes[id].length);
+        if (total == 1) return Stream.of(s);
+        return LongStream.range(0, total).mapToObj(i -> {
+            int[] out = new int[ids.length];
+            long r = i;
+            for (int k = ids.length - 1; k >= 0; k--) {
+                int[] members = classes[ids[k]];
+                if (members == null) { out[k] = ids[k]; continue; }
+                out[k] = members[(int) (r % members.length)];
+                r /= members.length;
+            }
+            return new Solution(s.cost(), s.conflicts(), out);
+        });
+    }
+
+    /* ---------- Lo común a todos los trozos: dominios admisibles y umbral ---------- */
+    private static final class Tree {
+        final SearchProblem problem;
+        final int n, max;
+        final int[][] allowed;     // grupos de cada dominio que respetan los días libres
+        final long[] below;        // below[d]: hojas como mucho bajo un nodo de profundidad d (saturado)
+        final SearchMonitor monitor;
+
+        Tree(SearchProblem problem, int max, SearchMonitor monitor) {
+            this.problem = problem;
+            this.max = max;
+            this.monitor = monitor;
+            this.n = problem.domains().size();
+            this.allowed = new int[n][];
+            for (int d = 0; d < n; d++)
+                allowed[d] = Arrays.stream(problem.domains().get(d))
+                        .filter(id -> !problem.masks()[id].hasAnyDay(problem.freeDayBits())).toArray();
+            this.below = new long[n + 1];
+            below[n] = 1;
+            for (int d = n - 1; d >= 0; d--) below[d] = times(allowed[d].length, below[d + 1]);
+        }
+    }
+
+    private static long times(long a, long b) {
+        return a != 0 && b > Long.MAX_VALUE / a ? Long.MAX_VALUE : a * b;
+    }
+
+    /* ---------- Un trozo del árbol: prefijo fijo hasta base y DFS explícito ---------- */
+    private static final class Walk implements Spliterator<Solution> {
+        final Tree t;
+        final int[] cur;           // cur[d]: grupo elegido en el dominio d (d < depth)
+        final int[] pos, end;      // grupos de allowed[d] por probar: [pos[d], end[d])
+        final int[] conf;          // conf[d]: solapes entre los d primeros
+        final int[][] partial;     // partial[e][j]: solapes de allowed[e][j] con lo asignado (e ≥ depth)
+        int base, depth;           // los dominios < base son el prefijo fijo del trozo
+        boolean done;
+
+        Walk(Tree t) {
+            this.t = t;
+            this.cur = new int[t.n];
+            this.pos = new int[t.n];
+            this.end = new int[t.n];
+            this.conf = new int[t.n + 1];
+            this.partial = new int[t.n][];
+            for (int e = 0; e < t.n; e++) partial[e] = new int[t.allowed[e].length];
+            if (t.n > 0) end[0] = t.allowed[0].length;
+        }
+
+        // Copia exacta (mismo camino, mismos rangos)
+        Walk(Walk w) {
+            this.t = w.t;
+            this.cur = w.cur.clone();
+            this.pos = w.pos.clone();
+            this.end = w.end.clone();
+            this.conf = w.conf.clone();
+            this.partial = new int[t.n][];
+            for (int e = 0; e < t.n; e++) partial[e] = w.partial[e].clone();
+            this.base = w.base;
+            this.depth = w.depth;
+            this.done = w.done;
+        }
+
+        @Override public boolean tryAdvance(Consumer<? super Solution> action) {
+            if (done) return false;
+            if (depth == t.n && !up()) return false;       // la hoja anterior ya salió
+            while (true) {
+                if (t.monitor.isCancelled()) { done = true; return false; }
+                if (!down()) {
+                    if (!up()) return false;
+                    continue;
+                }
+                if (depth == t.n) {
+                    action.accept(leaf());
+                    return true;
+                }
+            }
+        }
+
+        // Asigna el siguiente grupo que cabe en el dominio depth; false si no queda ninguno
+        private boolean down() {
+            int d = depth;
+            int[] values = t.allowed[d], acc = partial[d];
+            while (pos[d] < end[d]) {
+                int j = pos[d]++, id = values[j];
+                t.monitor.node();
+                int next = conf[d] + acc[j];
+                if (next > t.max) continue;
+                cur[d] = id;
+                if (next + push(d, id) > t.max) {
+                    pop(d, id);
+                    continue;
+                }
+                conf[d + 1] = next;
+                depth = d + 1;
+                if (depth < t.n) {
+                    pos[depth] = 0;
+                    end[depth] = t.allowed[depth].length;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        // Deshace el último grupo asignado; false (y se acaba) si ya se está en el prefijo
+        private boolean up() {
+            if (depth == base) {
+                done = true;
+                return false;
+            }
+            depth--;
+            pop(depth, cur[depth]);
+            return true;
+        }
+
+        // Suma los solapes de id (dominio d) a todos los dominios posteriores (pop
+        // los resta de todos) y devuelve la suma de sus mínimos (Long.MAX_VALUE / 2
+        // si alguno está vacío)
+        private long push(int d, int id) {
+            int[] row = t.problem.conflicts()[id];
+            long bound = 0;
+            for (int e = d + 1; e < t.n; e++) {
+                int[] values = t.allowed[e], acc = partial[e];
+                if (values.length == 0) {
+                    bound = Long.MAX_VALUE / 2;
+                    continue;
+                }
+                int min = Integer.MAX_VALUE;
+                for (int j = 0; j < values.length; j++) {
+                    int c = acc[j] += row[values[j]];
+                    if (c < min) min = c;
+                }
+                if (bound < Long.MAX_VALUE / 2) bound += min;
+            }
+            return bound;
+        }
+
+        private void pop(int d, int id) {
+            int[] row = t.problem.conflicts()[id];
+            for (int e = d + 1; e < t.n; e++) {
+                int[] values = t.allowed[e], acc = partial[e];
+                for (int j = 0; j < values.length; j++) acc[j] -= row[values[j]];
+            }
+        }
+
+        private Solution leaf() {
+            int[] ids = cur.clone();
+            int c = conf[t.n];
+            return new Solution(t.problem.objective().cost(c, t.problem.masks(), ids), c, ids);
+        }
+
+        @Override public Spliterator<Solution> trySplit() {
+            if (done) return null;
+            for (int d = base, top = Math.min(depth, t.n - 1); d <= top; d++) {
+                // Por debajo del camino basta un grupo pendiente; en el nivel sin
+                // empezar hacen falta dos para que cada trozo se lleve alguno
+                int left = end[d] - pos[d];
+                if (left < (d < depth ? 1 : 2)) continue;
+                int mid = pos[d] + left / 2;
+                Walk prefix = new Walk(this);
+                prefix.end[d] = mid;
+                while (depth > d) {
+                    depth--;
+                    pop(depth, cur[depth]);
+                }
+                base = d;
+                pos[d] = mid;
+                return prefix;
+            }
+            return null;
+        }
+
+        @Override public long estimateSize() {
+            if (done) return 0;
+            long size = 1;
+            for (int d = base, top = Math.min(depth, t.n - 1); d <= top; d++) {
+                long more = times(end[d] - pos[d], t.below[d + 1]);
+                size = more > Long.MAX_VALUE - size ? Long.MAX_VALUE : size + more;
+            }
+            return size;
+        }
+
+        @Override public int characteristics() { return ORDERED | NONNULL; }
+    }
+}
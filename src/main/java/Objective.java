@@ -0,0 +1,92 @@
+// Objective.java
+// -----------------------------------------------------------------------------
+// Coste que minimiza la búsqueda: los solapes y, además, lo que de verdad piden
+// los alumnos (huecos, días con clase, entrar pronto, salir tarde), con pesos:
+//
+//   coste = solapes·overlaps + Σ días con clase (perDay + huecos·gapPerHour/60
+//           + earlyStart si empieza antes de earlyBefore
+//           + lateFinish si termina después de lateAfter)
+//
+// Cada día se evalúa sobre su ocupación en franjas de WeekMask (OR de las
+// máscaras de los grupos elegidos), así que la búsqueda lo lleva de forma
+// incremental: al apilar un grupo sólo se reevalúan sus días (ver Backtracker).
+//
+// Días con clase, entrar pronto y salir tarde sólo pueden crecer al añadir
+// grupos: su valor en un prefijo es una cota inferior y la poda sigue siendo
+// válida. Los huecos no (una sesión nueva puede rellenar uno), así que sólo
+// cuentan en la hoja o en días que ningún dominio pendiente puede tocar.
+//
+// Con OVERLAPS el coste es el número de solapes y todo funciona como antes.
+// -----------------------------------------------------------------------------
+
+record Objective(int overlaps, int gapPerHour, int perDay, int earlyStart, int earlyBefore,
+                 int lateFinish, int lateAfter) {
+    static final int MAX_WEIGHT = 1000;
+    static final Objective OVERLAPS = new Objective(1, 0, 0, 0, 9 * 60, 0, 20 * 60);
+
+    /** earlyBefore y lateAfter en minutos desde las 00:00. */
+    Objective {
+        for (int w : new int[]{overlaps, gapPerHour, perDay, earlyStart, lateFinish})
+            if (w < 0 || w > MAX_WEIGHT)
+                throw new IllegalArgumentException("Los pesos deben estar entre 0 y " + MAX_WEIGHT + ": " + w);
+        if (earlyBefore < 0 || earlyBefore > 24 * 60 || lateAfter < 0 || lateAfter > 24 * 60)
+            throw new IllegalArgumentException("Hora fuera del día: " + earlyBefore + ", " + lateAfter);
+    }
+
+    /** true si hay algún coste por día además de los solapes. */
+    boolean soft() {
+        return gapPerHour != 0 || perDay != 0 || earlyStart != 0 || lateFinish != 0;
+    }
+
+    /**
+     * Parte del coste del día d que no baja al añadir grupos (día con clase,
+     * entrar pronto, salir tarde), según la ocupación {@code occ} en el formato de
+     * WeekMask (WORDS_PER_DAY palabras por día).
+     */
+    int dayCost(long[] occ, int d) {
+        int first = firstSlot(occ, d);
+        if (first < 0) return 0;
+        int c = perDay;
+        if (first * WeekMask.SLOT_MINUTES < earlyBefore) c += earlyStart;
+        if ((lastSlot(occ, d) + 1) * WeekMask.SLOT_MINUTES > lateAfter) c += lateFinish;
+        return c;
+    }
+
+    /** Coste de los huecos del día d: franjas libres entre la primera y la última ocupadas. */
+    int gapCost(long[] occ, int d) {
+        if (gapPerHour == 0) return 0;
+        int first = firstSlot(occ, d);
+        if (first < 0) return 0;
+        int busy = 0;
+        for (int w = d * WeekMask.WORDS_PER_DAY, last = w + WeekMask.WORDS_PER_DAY; w < last; w++)
+            busy += Long.bitCount(occ[w]);
+        int idle = (lastSlot(occ, d) - first + 1 - busy) * WeekMask.SLOT_MINUTES;
+        return (gapPerHour * idle + 30) / 60;
+    }
+
+    /** Coste total de una asignación completa de grupos {@code ids} con {@code conflicts} solapes. */
+    int cost(int conflicts, WeekMask[] masks, int[] ids) {
+        if (!soft()) return overlaps * conflicts;
+        long[] occ = new long[WeekMask.DAYS * WeekMask.WORDS_PER_DAY];
+        for (int id : ids) masks[id].orInto(occ);
+        int c = overlaps * conflicts;
+        for (int d = 0; d < WeekMask.DAYS; d++) c += dayCost(occ, d) + gapCost(occ, d);
+        return c;
+    }
+
+    private static int firstSlot(long[] occ, int d) {
+        for (int w = 0; w < WeekMask.WORDS_PER_DAY; w++) {
+            long bits = occ[d * WeekMask.WORDS_PER_DAY + w];
+            if (bits != 0) return w * 64 + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+
+    private static int lastSlot(long[] occ, int d) {
+        for (int w = WeekMask.WORDS_PER_DAY - 1; w >= 0; w--) {
+            long bits = occ[d * WeekMask.WORDS_PER_DAY + w];
+            if (bits != 0) return w * 64 + 63 - Long.numberOfLeadingZeros(bits);
+        }
+        return -1;
+    }
+}
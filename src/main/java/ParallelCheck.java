@@ -0,0 +1,163 @@
+// ParallelCheck.java
+// -----------------------------------------------------------------------------
+// Comprobación de que la búsqueda paralela da exactamente lo mismo que la
+// secuencial (java -jar Scheduler.jar --comprobar ...): mismas k combinaciones,
+// en el mismo orden, con los mismos grupos, no sólo el mismo coste.
+//
+// Las selecciones salen de una semilla fija sobre el catálogo (asignaturas de un
+// semestre, bloqueo de subgrupo, día libre, k y pesos por día), así que dos
+// ejecuciones con el mismo catálogo prueban lo mismo. Cada una se resuelve en
+// secuencial y en pools de varios tamaños, porque el número de hilos cambia
+// por dónde se parte el árbol.
+//
+// También la enumeración (Enumerator, --batch --todas) de cada selección con
+// como mucho un solape más que la mejor: en paralelo tiene que dar la misma
+// lista, en el mismo orden, que en secuencial, y si cabe entera en el tope
+// (ENUMERATED) sus mejores deben ser las mismas que da Backtracker con k = 5.
+// Sale con 1 si algo difiere.
+// -----------------------------------------------------------------------------
+
+import java.io.File;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+final class ParallelCheck {
+    private static final String USAGE = """
+            Uso: java -jar Scheduler.jar --comprobar [opciones]
+              --horarios <fichero>   catálogo (por defecto, horarios.json)
+              --consultas <n>        selecciones a comprobar (por defecto, 200)
+              --semilla <n>          semilla de las selecciones (por defecto, 2)""";
+    private static final int[] POOLS = {2, 4, 8};
+    private static final int[] ALTERNATIVES = {1, 3, 5};
+    private static final int ENUMERATED = 5000;
+    private static final Objective DAILY = new Objective(10, 2, 1, 1, 9 * 60, 1, 20 * 60);
+
+    private ParallelCheck() {}
+
+    /** @return código de salida del proceso */
+    static int run(String[] args) {
+        File horarios = new File("horarios.json");
+        int count = 200;
+        long seed = 2;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--horarios" -> horarios = new File(args[++i]);
+                    case "--consultas" -> count = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--semilla" -> seed = Long.parseLong(args[++i]);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Argumento no válido: " + e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        List<Scheduler.Subject> catalogue;
+        try { catalogue = Scheduler.loadCatalogue(horarios); }
+        catch (Exception e) {
+            System.err.println("No se pudo cargar " + horarios.getAbsolutePath() + ": " + e.getMessage());
+            return 1;
+        }
+        CompiledCatalogue compiled = new CompiledCatalogue(catalogue);
+
+        long t0 = System.nanoTime();
+        int checked = 0, failed = 0;
+        List<ForkJoinPool> pools = new ArrayList<>();
+        for (int n : POOLS) pools.add(new ForkJoinPool(n));
+        try {
+            Random rnd = new Random(seed);
+            for (int i = 0; i < count; i++) {
+                ScheduleQuery q = selection(catalogue, rnd);
+                int k = ALTERNATIVES[rnd.nextInt(ALTERNATIVES.length)];
+                if (q == null) continue;
+                Scheduler.Prepared p = compiled.prepare(q, null, k);
+                if (p == null) continue;
+                List<Solution> expected = new Backtracker(p.problem(), new SearchMonitor()).solve(k);
+                for (ForkJoinPool pool : pools) {
+                    List<Solution> got = new Backtracker(p.problem(), new SearchMonitor()).solveParallel(k, pool);
+                    if (same(expected, got)) continue;
+                    failed++;
+                    System.err.printf("Distinto con %d hilos, k=%d: %s%n  secuencial: %s%n  paralelo:   %s%n",
+                            pool.getParallelism(), k, q, text(expected), text(got));
+                }
+                if (q.objective().equals(Objective.OVERLAPS)) failed += enumeration(compiled, q, pools);
+                checked++;
+            }
+        } finally {
+            pools.forEach(ForkJoinPool::shutdownNow);
+        }
+        System.err.printf("%d selecciones comprobadas con %s hilos en %d ms: %d diferencias%n",
+                checked, Arrays.toString(POOLS), (System.nanoTime() - t0) / 1_000_000, failed);
+        return failed == 0 ? 0 : 1;
+    }
+
+    // Enumeración secuencial frente a paralela y frente a Backtracker; devuelve cuántas diferencias hubo
+    private static int enumeration(CompiledCatalogue compiled, ScheduleQuery q, List<ForkJoinPool> pools) {
+        Scheduler.Prepared p = compiled.prepare(q, null, Integer.MAX_VALUE);   // sin dominancia, como enumerate
+        if (p == null) return 0;
+        SearchProblem problem = p.problem();
+        List<Solution> best = new Backtracker(problem, new SearchMonitor()).solve(5);
+        if (best.isEmpty()) return 0;
+        int max = best.get(0).conflicts() + 1;
+        List<Solution> expected = Enumerator.all(problem, max, null, new SearchMonitor()).limit(ENUMERATED).toList();
+        int failed = 0;
+        for (ForkJoinPool pool : pools) {
+            List<Solution> got = pool.submit(() ->
+                    Enumerator.all(problem, max, null, new SearchMonitor()).parallel().limit(ENUMERATED).toList()).join();
+            if (same(expected, got)) continue;
+            failed++;
+            System.err.printf("Enumeración distinta con %d hilos (≤ %d solapes): %s%n  secuencial: %d  paralelo: %d%n",
+                    pool.getParallelism(), max, q, expected.size(), got.size());
+        }
+        if (expected.size() == ENUMERATED) return failed;
+        // Entera: las de menos solapes tienen que ser las de Backtracker dentro del umbral (a igualdad, en cualquier orden)
+        best = best.stream().filter(s -> s.conflicts() <= max).toList();
+        List<Integer> conflicts = expected.stream().map(Solution::conflicts).sorted().limit(best.size()).toList();
+        Set<List<Integer>> all = new HashSet<>();
+        for (Solution s : expected) all.add(Arrays.stream(s.ids()).boxed().toList());
+        boolean ok = conflicts.equals(best.stream().map(Solution::conflicts).toList())
+                && best.stream().allMatch(s -> all.contains(Arrays.stream(s.ids()).boxed().toList()));
+        if (ok) return failed;
+        System.err.printf("Enumeración y Backtracker no coinciden (≤ %d solapes): %s%n  enumeradas: %s%n  backtracking: %s%n",
+                max, q, conflicts, text(best));
+        return failed + 1;
+    }
+
+    // Asignaturas al azar de un semestre, o null si el semestre no tiene ninguna
+    private static ScheduleQuery selection(List<Scheduler.Subject> catalogue, Random rnd) {
+        String semester = rnd.nextBoolean() ? "1" : "2";
+        List<String> names = new ArrayList<>();
+        for (Scheduler.Subject s : catalogue)
+            if (s.groups().stream().flatMap(g -> g.sessions().stream()).anyMatch(x -> semester.equals(x.semestre())))
+                names.add(s.name());
+        if (names.isEmpty()) return null;
+        Collections.shuffle(names, rnd);
+        List<String> subjects = List.copyOf(names.subList(0, Math.min(names.size(), 3 + rnd.nextInt(8))));
+        Set<DayOfWeek> free = rnd.nextInt(4) == 0 ? Set.of(DayOfWeek.of(1 + rnd.nextInt(5))) : Set.of();
+        boolean lock = rnd.nextInt(3) == 0;
+        Objective objective = rnd.nextInt(4) == 0 ? DAILY : Objective.OVERLAPS;
+        return new ScheduleQuery(subjects, semester, free, Set.of(), lock, objective);
+    }
+
+    private static boolean same(List<Solution> a, List<Solution> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            Solution x = a.get(i), y = b.get(i);
+            if (x.cost() != y.cost() || x.conflicts() != y.conflicts() || !Arrays.equals(x.ids(), y.ids())) return false;
+        }
+        return true;
+    }
+
+    private static String text(List<Solution> sols) {
+        return sols.stream().map(s -> s.cost() + ":" + Arrays.toString(s.ids())).toList().toString();
+    }
+}
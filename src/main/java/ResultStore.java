@@ -0,0 +1,204 @@
+// ResultStore.java
+// -----------------------------------------------------------------------------
+// Resultados de la ventana guardados en disco junto a horarios.json
+// (horarios.cache), para que al volver a abrir la aplicación una consulta ya
+// calculada salga al instante en vez de repetir la búsqueda.
+//
+// Clave: la consulta canónica de SolutionCache.Key escrita como texto (con la
+// huella del catálogo, CompiledCatalogue.version). Si el catálogo cambia, su
+// huella también, así que lo guardado deja de acertar solo; al escribir se
+// descarta todo lo de otras huellas. Se guardan las soluciones tal cual (ids
+// locales del problema preparado): preparar es determinista, y aun así cada
+// solución se comprueba contra el problema (dominios, solapes y coste) antes de
+// usarla; si algo no cuadra se busca como siempre.
+//
+// Tamaño: como mucho MAX_BYTES; al pasarse se quitan las menos usadas.
+//
+// Formato (big-endian): MAGIC, VERSION, nº de entradas y, por entrada, huella,
+// clave (longitud + UTF-8) y soluciones (coste, solapes, ids); al final un CRC32
+// de todo lo anterior. Se escribe en un temporal y se renombra, como
+// CatalogueSnapshot: un corte a medias nunca deja un fichero que parezca bueno.
+// Si no se puede leer se empieza de cero.
+// -----------------------------------------------------------------------------
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+final class ResultStore {
+    private static final int MAGIC = 0x43524553;   // "CRES"
+    private static final int VERSION = 1;
+    static final long MAX_BYTES = 1L << 20;
+
+    private record Entry(long catalogue, List<Solution> solutions, int bytes) {}
+
+    private final File file;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);   // orden de uso
+
+    private ResultStore(File file) { this.file = file; }
+
+    /** Fichero de resultados de un catálogo (mismo nombre, extensión .cache). */
+    static File fileFor(File json) {
+        String name = json.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(json.getAbsoluteFile().getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".cache");
+    }
+
+    /** Almacén de {@code file}, vacío si no existe o no se puede leer. */
+    static ResultStore open(File file) {
+        ResultStore store = new ResultStore(file);
+        if (file.isFile()) {
+            try { store.read(); }
+            catch (IOException | RuntimeException e) {
+                store.entries.clear();
+                System.err.println("Resultados guardados en " + file.getName() + " ilegibles, se descartan: " + e);
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Soluciones guardadas para {@code key}, o null si no hay o no encajan en
+     * {@code problem} (el de la misma consulta, recién preparado).
+     */
+    synchronized List<Solution> get(SolutionCache.Key key, SearchProblem problem) {
+        Entry e = entries.get(text(key));
+        if (e == null || e.catalogue() != key.catalogue()) return null;
+        for (Solution s : e.solutions()) if (!fits(s, problem)) return null;
+        return e.solutions();
+    }
+
+    /** Guarda las soluciones de {@code key} y reescribe el fichero (si falla, sólo se avisa). */
+    synchronized void put(SolutionCache.Key key, List<Solution> solutions) {
+        entries.values().removeIf(e -> e.catalogue() != key.catalogue());
+        String k = text(key);
+        int bytes = 16 + k.getBytes(StandardCharsets.UTF_8).length;
+        for (Solution s : solutions) bytes += 12 + 4 * s.ids().length;
+        if (bytes > MAX_BYTES) return;
+        entries.put(k, new Entry(key.catalogue(), List.copyOf(solutions), bytes));
+        long total = 0;
+        for (Entry e : entries.values()) total += e.bytes();
+        for (Iterator<Entry> it = entries.values().iterator(); total > MAX_BYTES && it.hasNext(); ) {
+            total -= it.next().bytes();
+            it.remove();
+        }
+        try { write(); }
+        catch (IOException e) { System.err.println("No se pudo escribir " + file.getAbsolutePath() + ": " + e.getMessage()); }
+    }
+
+    // Una línea por campo; las listas, separadas por U+001F (no aparece en nombres)
+    private static String text(SolutionCache.Key key) {
+        Objective o = key.objective();
+        return String.join("\n", Long.toHexString(key.catalogue()), String.join("\u001f", key.subjects()),
+                key.semester(), Integer.toString(key.freeDays()), String.join("\u001f", key.skipPractices()),
+                Boolean.toString(key.lockSameSubgroup()),
+                o.overlaps() + "," + o.gapPerHour() + "," + o.perDay() + "," + o.earlyStart() + "," + o.earlyBefore()
+                        + "," + o.lateFinish() + "," + o.lateAfter(),
+                key.engine(), Integer.toString(key.k()));
+    }
+
+    // La solución usa un grupo de cada dominio y sus solapes y coste son los de este problema
+    private static boolean fits(Solution s, SearchProblem p) {
+        int[] ids = s.ids();
+        if (ids.length != p.domains().size()) return false;
+        for (int d = 0; d < ids.length; d++) {
+            int id = ids[d];
+            if (Arrays.stream(p.domains().get(d)).noneMatch(x -> x == id)) return false;
+        }
+        int conflicts = 0;
+        for (int i = 0; i < ids.length; i++)
+            for (int j = i + 1; j < ids.length; j++) conflicts += p.conflicts()[ids[i]][ids[j]];
+        return conflicts == s.conflicts() && p.objective().cost(conflicts, p.masks(), ids) == s.cost();
+    }
+
+    /* ---------- Lectura y escritura ---------- */
+    private void read() throws IOException {
+        byte[] all = Files.readAllBytes(file.toPath());
+        if (all.length < 8) throw new IOException("fichero truncado");
+        CRC32 crc = new CRC32();
+        crc.update(all, 0, all.length - 8);
+        ByteBuffer buf = ByteBuffer.wrap(all);
+        if (buf.getLong(all.length - 8) != crc.getValue()) throw new IOException("CRC no coincide");
+        buf.limit(all.length - 8);
+        try {
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return;
+            int n = buf.getInt();
+            for (int i = 0; i < n; i++) {
+                long catalogue = buf.getLong();
+                byte[] k = new byte[buf.getInt()];
+                buf.get(k);
+                int count = buf.getInt(), bytes = 16 + k.length;
+                List<Solution> sols = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    int cost = buf.getInt(), conflicts = buf.getInt();
+                    int[] ids = new int[buf.getInt()];
+                    buf.asIntBuffer().get(ids);
+                    buf.position(buf.position() + 4 * ids.length);
+                    sols.add(new Solution(cost, conflicts, ids));
+                    bytes += 12 + 4 * ids.length;
+                }
+                entries.put(new String(k, StandardCharsets.UTF_8), new Entry(catalogue, List.copyOf(sols), bytes));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("fichero truncado", e);
+        }
+    }
+
+    private void write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        // De menos a más usada: al releer, el orden de uso se conserva
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            out.writeLong(e.getValue().catalogue());
+            byte[] k = e.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(k.length);
+            out.write(k);
+            out.writeInt(e.getValue().solutions().size());
+            for (Solution s : e.getValue().solutions()) {
+                out.writeInt(s.cost());
+                out.writeInt(s.conflicts());
+                out.writeInt(s.ids().length);
+                for (int id : s.ids()) out.writeInt(id);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+
+        Path tmp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            // Al disco antes de renombrar: tras un apagón o está el nuevo entero o el anterior
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+                while (data.hasRemaining()) ch.write(data);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+// ScheduleEngine.java
+// -----------------------------------------------------------------------------
+// Motor de búsqueda intercambiable: recibe el problema ya preparado (dominios,
+// matriz de conflictos y días libres) y devuelve las k mejores asignaciones
+// distintas, de menos a más solapamientos (vacía si ninguna respeta los días
+// libres). Informa del progreso y atiende la cancelación a través del
+// SearchMonitor.
+// -----------------------------------------------------------------------------
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+interface ScheduleEngine {
+    List<Solution> solve(SearchProblem problem, int k, SearchMonitor monitor);
+
+    /** La mejor asignación, o null si no hay ninguna. */
+    default Solution solve(SearchProblem problem, SearchMonitor monitor) {
+        List<Solution> best = solve(problem, 1, monitor);
+        return best.isEmpty() ? null : best.get(0);
+    }
+
+    ScheduleEngine BACKTRACKING = (p, k, m) -> new Backtracker(p, m).solve(k);
+    ScheduleEngine BACKTRACKING_PARALLEL = (p, k, m) -> new Backtracker(p, m).solveParallel(k);
+    ScheduleEngine CHOCO = new ChocoEngine();
+
+    /** Nombre visible de un motor (o "?" si no es uno de los disponibles). */
+    static String nameOf(ScheduleEngine engine) {
+        for (Map.Entry<String, ScheduleEngine> e : available().entrySet())
+            if (e.getValue() == engine) return e.getKey();
+        return "?";
+    }
+
+    /** Motores disponibles por nombre visible, en el orden en que se ofrecen. */
+    static Map<String, ScheduleEngine> available() {
+        Map<String, ScheduleEngine> m = new LinkedHashMap<>();
+        m.put("Backtracking", BACKTRACKING);
+        m.put("Backtracking paralelo", BACKTRACKING_PARALLEL);
+        m.put("Choco-solver", CHOCO);
+        return m;
+    }
+}
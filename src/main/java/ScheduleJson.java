@@ -0,0 +1,201 @@
+// ScheduleJson.java
+// -----------------------------------------------------------------------------
+// Formato JSON de consultas y resultados para los modos sin ventana. Las claves
+// siguen el estilo de horarios.json (asignatura, grupo, tipo, dia...).
+//
+// Consulta:
+//   {"id":"a17","asignaturas":["ME","PI"],"semestre":"1","diasLibres":["viernes"],
+//    "sinPracticas":["PI"],"mismoSubgrupo":false,"alternativas":1,"motor":"Backtracking",
+//    "limiteMs":2000,"pesos":{"solapes":10,"huecos":2,"dias":1,"madrugar":3,"antesDe":"09:00",
+//    "tarde":3,"despuesDe":"20:00"}}
+// ("limiteMs" sólo lo atiende el servidor, que lo recorta a su propio límite.
+//  "pesos" es opcional; cada peso que falta vale 0 salvo "solapes", que vale 1; ver Objective.)
+// Resultado (estado OK | SIN_SOLUCION | TIEMPO_AGOTADO | ERROR; "parcial":true si se
+// agotó el tiempo; TIEMPO_AGOTADO si se agotó antes de encontrar ninguna combinación):
+//   {"id":"a17","estado":"OK","nodos":812,"ms":3,"soluciones":[{"solapes":0,"coste":4,"grupos":[
+//    {"asignatura":"ME [Teoría]","grupo":"1-41","equivalentes":["1-42"],
+//     "sesiones":[{"tipo":..,"dia":..,"inicio":..,"fin":..}]}]}],
+// ("cache":true si se sirvió de SolutionCache; "nodos", "ms" y "estadisticas" son
+//  entonces los de la búsqueda que lo calculó.
+//  "equivalentes": grupos con el mismo efecto que el elegido, ver Symmetry; se omite si no hay.
+//  "coste" sólo aparece si la consulta trae pesos por día.)
+//    "estadisticas":{"fasesUs":{"compilar":..,"buscar":..},"nodos":812,"podas":..,...}}   (ver SearchStats)
+// Todas las combinaciones (--batch --todas, ver Enumerator), una línea por combinación:
+//   {"id":"a17","solapes":0,"grupos":[{"asignatura":"ME [Teoría]","grupo":"1-41","sesiones":[..]}]}
+// (si no hay ninguna dentro del umbral, una sola línea con estado SIN_SOLUCION).
+// Reparto con plazas (--cohorte, ver CohortAssigner), una línea por alumno:
+//   {"id":"a17","estado":"OK","solapes":0,"grupos":[{"asignatura":"ME [Teoría]","grupo":"1-41","sesiones":[..]}]}
+// y ocupación de cada grupo ("plazas" se omite si no tiene límite):
+//   {"asignatura":"ME","grupo":"1-41","tipo":"Teoría","plazas":60,"ocupadas":58}
+// -----------------------------------------------------------------------------
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+final class ScheduleJson {
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+
+    static final int MAX_ALTERNATIVES = 50;
+
+    private ScheduleJson() {}
+
+    public record Request(String id, List<String> asignaturas, String semestre, List<String> diasLibres,
+                          List<String> sinPracticas, Boolean mismoSubgrupo, Integer alternativas, String motor,
+                          Long limiteMs, Pesos pesos) {
+        ScheduleQuery toQuery() {
+            Set<DayOfWeek> free = new HashSet<>();
+            for (String d : listOf("diasLibres", diasLibres)) free.add(Scheduler.parseDay(d));
+            return new ScheduleQuery(
+                    listOf("asignaturas", asignaturas),
+                    semestre,
+                    free,
+                    Set.copyOf(listOf("sinPracticas", sinPracticas)),
+                    Boolean.TRUE.equals(mismoSubgrupo),
+                    pesos == null ? Objective.OVERLAPS : pesos.toObjective());
+        }
+
+        // Copia de una lista de la consulta (vacía si falta); un null dentro es un error del cliente
+        private static List<String> listOf(String field, List<String> values) {
+            if (values == null) return List.of();
+            if (values.contains(null)) throw new IllegalArgumentException("\"" + field + "\" no puede contener null");
+            return List.copyOf(values);
+        }
+
+        int k() {
+            int k = alternativas == null ? 1 : alternativas;
+            if (k < 1 || k > MAX_ALTERNATIVES)
+                throw new IllegalArgumentException("alternativas debe estar entre 1 y " + MAX_ALTERNATIVES + ": " + k);
+            return k;
+        }
+
+        ScheduleEngine engine() {
+            if (motor == null) return ScheduleEngine.BACKTRACKING;
+            for (Map.Entry<String, ScheduleEngine> e : ScheduleEngine.available().entrySet())
+                if (e.getKey().equalsIgnoreCase(motor)) return e.getValue();
+            throw new IllegalArgumentException("Motor desconocido: " + motor + " (" + ScheduleEngine.available().keySet() + ")");
+        }
+    }
+
+    public record Pesos(Integer solapes, Integer huecos, Integer dias, Integer madrugar, String antesDe,
+                        Integer tarde, String despuesDe) {
+        Objective toObjective() {
+            Objective d = Objective.OVERLAPS;
+            return new Objective(
+                    solapes == null ? d.overlaps() : solapes,
+                    huecos == null ? 0 : huecos,
+                    dias == null ? 0 : dias,
+                    madrugar == null ? 0 : madrugar,
+                    antesDe == null ? d.earlyBefore() : minutes(antesDe),
+                    tarde == null ? 0 : tarde,
+                    despuesDe == null ? d.lateAfter() : minutes(despuesDe));
+        }
+
+        private static int minutes(String hhmm) {
+            try {
+                LocalTime t = LocalTime.parse(hhmm);
+                return t.getHour() * 60 + t.getMinute();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Hora inválida: " + hhmm);
+            }
+        }
+    }
+
+    public record SessionOut(String tipo, String dia, String inicio, String fin) {}
+    public record GroupOut(String asignatura, String grupo, List<String> equivalentes, List<SessionOut> sesiones) {}
+    public record SolutionOut(int solapes, Integer coste, List<GroupOut> grupos) {}
+    public record Response(String id, String estado, String error, Long nodos, Long ms, Boolean parcial,
+                           Boolean cache, List<SolutionOut> soluciones, SearchStats estadisticas) {}
+    public record OptionOut(String id, int solapes, Integer coste, List<GroupOut> grupos) {}
+    public record PlacementOut(String id, String estado, String error, Integer solapes, List<GroupOut> grupos) {}
+    public record SeatOut(String asignatura, String grupo, String tipo, Integer plazas, int ocupadas) {}
+
+    static Response response(String id, ScheduleService.Outcome o) {
+        if (o.solutions().isEmpty() && o.cancelled())
+            return new Response(id, "TIEMPO_AGOTADO",
+                    "Se agotó el tiempo antes de encontrar ninguna combinación; prueba con un límite mayor.",
+                    o.nodes(), o.millis(), true, cached(o), null, o.stats());
+        if (o.solutions().isEmpty())
+            return new Response(id, "SIN_SOLUCION",
+                    "No hay combinación válida que respete los días libres y el semestre seleccionados.",
+                    o.nodes(), o.millis(), partial(o), cached(o), null, o.stats());
+        List<SolutionOut> out = new ArrayList<>();
+        for (Solution sol : o.solutions()) {
+            List<Scheduler.Group> groups = o.prepared().groupsOf(sol);
+            List<List<Scheduler.Group>> eq = o.prepared().equivalentsOf(sol);
+            List<GroupOut> gs = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i++) {
+                List<String> alt = eq.get(i).isEmpty() ? null : eq.get(i).stream().map(Scheduler.Group::code).toList();
+                gs.add(group(o.prepared().subjects().get(i).name(), groups.get(i), alt));
+            }
+            out.add(new SolutionOut(sol.conflicts(), cost(o.prepared(), sol), gs));
+        }
+        return new Response(id, "OK", null, o.nodes(), o.millis(), partial(o), cached(o), out, o.stats());
+    }
+
+    /** Una combinación de ScheduleService.enumerate (los equivalentes ya salen como combinaciones propias). */
+    static OptionOut option(String id, Scheduler.Prepared p, Solution sol) {
+        List<Scheduler.Group> groups = p.groupsOf(sol);
+        List<GroupOut> gs = new ArrayList<>(groups.size());
+        for (int i = 0; i < groups.size(); i++) gs.add(group(p.subjects().get(i).name(), groups.get(i), null));
+        return new OptionOut(id, sol.conflicts(), cost(p, sol), gs);
+    }
+
+    static Response noOption(String id, int maxConflicts) {
+        return new Response(id, "SIN_SOLUCION", "Ninguna combinación con como mucho " + maxConflicts + " solapes.",
+                null, null, null, null, null, null);
+    }
+
+    // "coste" sólo con pesos por día
+    private static Integer cost(Scheduler.Prepared p, Solution sol) {
+        return p.problem().objective().soft() ? sol.cost() : null;
+    }
+
+    static PlacementOut placement(CohortAssigner.Placement p) {
+        if (p.solution() == null) {
+            String estado = p.prepared() == null ? "ERROR" : "SIN_SOLUCION";
+            return new PlacementOut(p.id(), estado, p.error(), null, null);
+        }
+        List<Scheduler.Group> groups = p.groups();
+        List<GroupOut> gs = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) gs.add(group(p.prepared().subjects().get(i).name(), groups.get(i), null));
+        return new PlacementOut(p.id(), "OK", null, p.solution().conflicts(), gs);
+    }
+
+    static SeatOut seat(CohortAssigner.Seat s) {
+        Integer plazas = s.capacity() == Scheduler.Group.UNLIMITED ? null : s.capacity();
+        return new SeatOut(s.subject(), s.code(), s.tipo(), plazas, s.taken());
+    }
+
+    private static GroupOut group(String subject, Scheduler.Group g, List<String> equivalents) {
+        List<SessionOut> ses = g.sessions().stream()
+                .sorted(Comparator.comparing(Scheduler.Session::day).thenComparing(Scheduler.Session::start))
+                .map(s -> new SessionOut(s.tipo(), s.day().toString(), s.start().toString(), s.end().toString()))
+                .toList();
+        return new GroupOut(subject, g.code(), equivalents, ses);
+    }
+
+    static Response error(String id, String message) {
+        return new Response(id, "ERROR", message, null, null, null, null, null, null);
+    }
+
+    private static Boolean partial(ScheduleService.Outcome o) {
+        return o.cancelled() ? Boolean.TRUE : null;
+    }
+
+    private static Boolean cached(ScheduleService.Outcome o) {
+        return o.cached() ? Boolean.TRUE : null;
+    }
+}
@@ -0,0 +1,19 @@
+// ScheduleQuery.java
+// -----------------------------------------------------------------------------
+// Lo que un alumno pide al calcular un horario, independiente de la interfaz:
+// asignaturas, semestre, días libres, asignaturas "SP" (sin prácticas), si
+// teoría y prácticas van bloqueadas al mismo subgrupo y qué se minimiza
+// (sólo solapes por defecto; ver Objective).
+// -----------------------------------------------------------------------------
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Set;
+
+record ScheduleQuery(List<String> subjects, String semester, Set<DayOfWeek> freeDays,
+                     Set<String> skipPractices, boolean lockSameSubgroup, Objective objective) {
+    ScheduleQuery(List<String> subjects, String semester, Set<DayOfWeek> freeDays,
+                  Set<String> skipPractices, boolean lockSameSubgroup) {
+        this(subjects, semester, freeDays, skipPractices, lockSameSubgroup, Objective.OVERLAPS);
+    }
+}
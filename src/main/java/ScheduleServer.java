@@ -0,0 +1,196 @@
+// ScheduleServer.java
+// -----------------------------------------------------------------------------
+// Modo servidor (java -jar Scheduler.jar --server ...) sobre el HttpServer del
+// JDK, sin servicios externos. Cada petición se atiende en un hilo virtual; el
+// catálogo se carga una vez y lo comparten todas (ScheduleService).
+//
+//   POST /horario      consulta JSON (ver ScheduleJson) → resultado JSON
+//   GET  /asignaturas  nombres de las asignaturas del catálogo
+//   GET  /salud        "ok"
+//
+// Para no saturar la máquina en plena matrícula:
+// • Tope de búsquedas simultáneas (por defecto, los núcleos). Si no hay hueco
+//   en ESPERA_MS se responde 503 con Retry-After.
+// • Límite de tiempo por petición: al vencer se cancela la búsqueda y se
+//   devuelve lo mejor encontrado con "parcial": true.
+// • Consultas repetidas: se sirven de la caché de resultados (SolutionCache) y
+//   las iguales que llegan a la vez comparten una búsqueda.
+//
+// Los cambios en horarios.json se recargan solos (CatalogueWatcher) sin
+// reiniciar el proceso.
+// -----------------------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+final class ScheduleServer {
+    private static final String USAGE = """
+            Uso: java -jar Scheduler.jar --server [opciones]
+              --puerto <n>            puerto HTTP (por defecto, 8080)
+              --horarios <fichero>    catálogo (por defecto, horarios.json)
+              --concurrentes <n>      búsquedas simultáneas (por defecto, núcleos disponibles)
+              --limite-ms <n>         tiempo máximo de búsqueda por petición (por defecto, 5000)
+              --cache-mb <n>          memoria para resultados repetidos (por defecto, 64; 0 = no guardar)""";
+    private static final long ESPERA_MS = 2_000;
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final ScheduleService service;
+    private final Semaphore slots;
+    private final long limitMillis;
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cuadreitor-timeouts");
+        t.setDaemon(true);
+        return t;
+    });
+
+    ScheduleServer(ScheduleService service, int maxConcurrent, long limitMillis) {
+        this.service = service;
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.limitMillis = limitMillis;
+    }
+
+    /** @return código de salida del proceso (sólo vuelve si no se pudo arrancar) */
+    static int run(String[] args) {
+        int port = 8080;
+        File horarios = new File("horarios.json");
+        int concurrent = Runtime.getRuntime().availableProcessors();
+        long limit = 5_000;
+        long cacheBytes = SolutionCache.DEFAULT_BYTES;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--puerto" -> port = Integer.parseInt(args[++i]);
+                    case "--horarios" -> horarios = new File(args[++i]);
+                    case "--concurrentes" -> concurrent = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--limite-ms" -> limit = Math.max(1, Long.parseLong(args[++i]));
+                    case "--cache-mb" -> cacheBytes = Math.max(0, Long.parseLong(args[++i])) << 20;
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Argumento no válido: " + e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        ScheduleService service;
+        try { service = new ScheduleService(Scheduler.loadCatalogue(horarios), cacheBytes); }
+        catch (Exception e) {
+            System.err.println("No se pudo cargar " + horarios.getAbsolutePath() + ": " + e.getMessage());
+            return 1;
+        }
+        File watched = horarios;
+        try {
+            CatalogueWatcher.start(horarios, new CatalogueWatcher.Listener() {
+                @Override public void reloaded(List<Scheduler.Subject> catalogue, List<String> problems) {
+                    for (String p : problems) System.err.println(watched.getName() + ", " + p);
+                    service.reload(catalogue);
+                    System.err.printf("Catálogo recargado: %d asignaturas%n", catalogue.size());
+                }
+
+                @Override public void failed(Exception e) {
+                    System.err.println("No se pudo recargar " + watched.getName() + "; se sigue con el anterior: " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("No se vigilarán los cambios de " + horarios.getName() + ": " + e.getMessage());
+        }
+        try {
+            new ScheduleServer(service, concurrent, limit).start(port);
+        } catch (IOException e) {
+            System.err.println("No se pudo abrir el puerto " + port + ": " + e.getMessage());
+            return 1;
+        }
+        System.err.printf("Cuadreitor escuchando en http://localhost:%d (%d asignaturas, %d búsquedas simultáneas, %d ms)%n",
+                port, service.catalogue().size(), concurrent, limit);
+        return 0;
+    }
+
+    HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/horario", this::horario);
+        server.createContext("/asignaturas", ex -> {
+            if (!allow(ex, "GET")) return;
+            send(ex, 200, ScheduleJson.MAPPER.writeValueAsBytes(
+                    service.catalogue().stream().map(Scheduler.Subject::name).toList()));
+        });
+        server.createContext("/salud", ex -> {
+            if (!allow(ex, "GET")) return;
+            send(ex, 200, "\"ok\"".getBytes(StandardCharsets.UTF_8));
+        });
+        server.start();
+        return server;
+    }
+
+    private void horario(HttpExchange ex) throws IOException {
+        if (!allow(ex, "POST")) return;
+        ScheduleJson.Request req;
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) { reply(ex, 413, ScheduleJson.error(null, "Consulta demasiado grande.")); return; }
+            req = ScheduleJson.MAPPER.readValue(body, ScheduleJson.Request.class);
+        } catch (IOException e) {
+            reply(ex, 400, ScheduleJson.error(null, "JSON no válido: " + e.getMessage()));
+            return;
+        }
+
+        boolean acquired;
+        try { acquired = slots.tryAcquire(ESPERA_MS, TimeUnit.MILLISECONDS); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); acquired = false; }
+        if (!acquired) {
+            ex.getResponseHeaders().set("Retry-After", "1");
+            reply(ex, 503, ScheduleJson.error(req.id(), "Servidor ocupado, inténtalo de nuevo."));
+            return;
+        }
+
+        SearchMonitor monitor = new SearchMonitor();
+        long limit = req.limiteMs() == null ? limitMillis : Math.max(1, Math.min(limitMillis, req.limiteMs()));
+        ScheduledFuture<?> timeout = timeouts.schedule(monitor::cancel, limit, TimeUnit.MILLISECONDS);
+        ScheduleJson.Response r;
+        int status = 200;
+        try {
+            r = ScheduleJson.response(req.id(), service.solve(req.toQuery(), req.engine(), req.k(), monitor));
+        } catch (IllegalArgumentException e) {
+            r = ScheduleJson.error(req.id(), e.getMessage());
+            status = 400;
+        } catch (RuntimeException e) {
+            r = ScheduleJson.error(req.id(), "Error interno: " + e);
+            status = 500;
+        } finally {
+            timeout.cancel(false);
+            slots.release();
+        }
+        reply(ex, status, r);
+    }
+
+    private static boolean allow(HttpExchange ex, String method) throws IOException {
+        if (method.equals(ex.getRequestMethod())) return true;
+        ex.getResponseHeaders().set("Allow", method);
+        reply(ex, 405, ScheduleJson.error(null, "Método no permitido: " + ex.getRequestMethod()));
+        return false;
+    }
+
+    private static void reply(HttpExchange ex, int status, ScheduleJson.Response r) throws IOException {
+        send(ex, status, ScheduleJson.MAPPER.writeValueAsBytes(r));
+    }
+
+    private static void send(HttpExchange ex, int status, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) { out.write(body); }
+    }
+}
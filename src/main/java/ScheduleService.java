@@ -0,0 +1,107 @@
+// ScheduleService.java
+// -----------------------------------------------------------------------------
+// Cálculo de horario sin interfaz, sobre un catálogo cargado una sola vez y
+// compartido (inmutable) entre todas las consultas y todos los hilos. Es lo que
+// hace "Calcular horario" en la ventana, para el modo por lotes y el servidor.
+// El catálogo se compila por semestre y variante (CompiledCatalogue) y cada
+// consulta calcula los solapes de sus grupos desde las máscaras. reload() publica
+// un catálogo nuevo de golpe; las consultas en curso terminan con el anterior.
+//
+// Los resultados se guardan por consulta canónica y versión del catálogo
+// (SolutionCache): una consulta repetida no vuelve a buscar, y varias iguales a
+// la vez comparten una sola búsqueda.
+// -----------------------------------------------------------------------------
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toCollection;
+
+final class ScheduleService {
+    /** Resultado de una consulta; prepared es null si no quedó ninguna sesión tras los filtros. */
+    record Outcome(Scheduler.Prepared prepared, List<Solution> solutions, long nodes, long millis, boolean cancelled,
+                   SearchStats stats, boolean cached) {
+        /** El mismo resultado, servido desde SolutionCache. */
+        Outcome fromCache() {
+            return new Outcome(prepared, solutions, nodes, millis, cancelled, stats, true);
+        }
+    }
+
+    /** Asignaciones de enumerate (ids de prepared, ver Prepared.groupsOf); prepared es null si no quedó ninguna sesión. */
+    record Listing(Scheduler.Prepared prepared, Stream<Solution> solutions) {}
+
+    private volatile CompiledCatalogue compiled;
+    private final SolutionCache cache;
+
+    ScheduleService(List<Scheduler.Subject> catalogue) {
+        this(catalogue, SolutionCache.DEFAULT_BYTES);
+    }
+
+    ScheduleService(List<Scheduler.Subject> catalogue, long cacheBytes) {
+        this.compiled = new CompiledCatalogue(catalogue);
+        this.cache = new SolutionCache(cacheBytes);
+    }
+
+    List<Scheduler.Subject> catalogue() { return compiled.catalogue(); }
+
+    /** Sustituye el catálogo (recompilando sólo lo que ha cambiado). */
+    synchronized void reload(List<Scheduler.Subject> catalogue) {
+        CompiledCatalogue next = compiled.reload(catalogue);
+        boolean changed = next.version() != compiled.version();
+        compiled = next;
+        if (changed) cache.clear();
+    }
+
+    /**
+     * Resuelve una consulta con el motor indicado (o la sirve de SolutionCache).
+     * @throws IllegalArgumentException si la consulta no es válida (semestre, asignaturas)
+     */
+    Outcome solve(ScheduleQuery q, ScheduleEngine engine, int k, SearchMonitor monitor) {
+        CompiledCatalogue c = compiled;
+        validate(c, q);
+        return cache.get(SolutionCache.Key.of(c.version(), q, engine, k), monitor, () -> search(c, q, engine, k, monitor));
+    }
+
+    private static Outcome search(CompiledCatalogue c, ScheduleQuery q, ScheduleEngine engine, int k, SearchMonitor monitor) {
+        long t0 = System.nanoTime();
+        Scheduler.Prepared prepared = c.prepare(q, null, k, monitor);
+        if (prepared == null) return new Outcome(null, List.of(), 0, elapsedMillis(t0), false, monitor.stats(), false);
+        long t = System.nanoTime();
+        List<Solution> sols = engine.solve(prepared.problem(), k, monitor);
+        monitor.phase("buscar", t);
+        SearchStats stats = monitor.stats();
+        stats.emit(ScheduleEngine.nameOf(engine), prepared, k, sols.isEmpty() ? -1 : sols.get(0).conflicts(), monitor.isCancelled());
+        return new Outcome(prepared, sols, monitor.nodes(), elapsedMillis(t0), monitor.isCancelled(), stats, false);
+    }
+
+    /**
+     * Todas las asignaciones de una consulta con como mucho {@code maxConflicts}
+     * solapes, de forma perezosa (ver Enumerator): se corta con limit() y se
+     * reparte con parallel(). Vacío si no queda ninguna sesión tras los filtros.
+     * @throws IllegalArgumentException si la consulta no es válida (semestre, asignaturas)
+     */
+    Listing enumerate(ScheduleQuery q, int maxConflicts, SearchMonitor monitor) {
+        CompiledCatalogue c = compiled;
+        validate(c, q);
+        // Sin dominancia (k > 1): los grupos dominados también están en asignaciones válidas
+        Scheduler.Prepared prepared = c.prepare(q, null, Integer.MAX_VALUE, monitor);
+        if (prepared == null) return new Listing(null, Stream.empty());
+        return new Listing(prepared, Enumerator.all(prepared.problem(), maxConflicts, prepared.classes(), monitor));
+    }
+
+    static void validate(CompiledCatalogue c, ScheduleQuery q) {
+        if (!"1".equals(q.semester()) && !"2".equals(q.semester()))
+            throw new IllegalArgumentException("El semestre debe ser 1 o 2: " + q.semester());
+        if (q.subjects().isEmpty())
+            throw new IllegalArgumentException("Debes seleccionar al menos una asignatura.");
+        Set<String> unknown = q.subjects().stream().filter(s -> !c.contains(s)).collect(toCollection(TreeSet::new));
+        if (!unknown.isEmpty())
+            throw new IllegalArgumentException("Asignaturas desconocidas: " + unknown);
+    }
+
+    private static long elapsedMillis(long t0) {
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+}
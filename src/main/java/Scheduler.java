@@ -11,19 +11,18 @@
 
 import java.awt.*;
 import java.io.File;
-import java.text.Collator;
+import java.io.IOException;
 import java.time.DayOfWeek;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 import javax.swing.*;
+import javax.swing.Timer;
 import javax.swing.plaf.FontUIResource;
 import javax.swing.table.*;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 public final class Scheduler {
     /* ---------- Records ---------- */
@@ -34,28 +33,68 @@ public final class Scheduler {
             return day == o.day && start.isBefore(o.end) && o.start.isBefore(end);
         }
     }
-    public record Group(String code, List<Session> sessions) {}
+    /** capacities: plazas del grupo por tipo (normalizeTipo) según "plazas" en horarios.json; sin entrada no hay límite. */
+    public record Group(String code, List<Session> sessions, Map<String, Integer> capacities) {
+        public static final int UNLIMITED = Integer.MAX_VALUE;
+
+        public Group {
+            capacities = Map.copyOf(capacities);
+            capacities.forEach((tipo, n) -> {
+                if (n < 0) throw new IllegalArgumentException("Plazas negativas en el grupo " + code + " (" + tipo + "): " + n);
+            });
+        }
+
+        public Group(String code, List<Session> sessions) { this(code, sessions, Map.of()); }
+
+        /** Plazas de las sesiones de un tipo (sin normalizar), o UNLIMITED si no tiene límite. */
+        public int capacity(String tipo) { return capacities.getOrDefault(normalizeTipo(tipo), UNLIMITED); }
+    }
     public record Subject(String name, List<Group> groups) {}
 
     /* ---------- Campos de instancia ---------- */
-    private final List<Subject> allSubjects;
+    private List<Subject> allSubjects;              // se sustituyen enteros al recargar horarios.json
+    private volatile CompiledCatalogue compiled;
+    private ResultStore results;                    // resultados de otras ejecuciones (horarios.cache)
     private JFrame frame;
     private JComboBox<String> semesterCombo;
-    private List<JToggleButton> subjectButtons;
+    private SubjectPicker subjectPicker;
     private JTextArea outputArea;
     private JLabel comboCounterLabel;
+    private JButton calcBtn, cancelBtn;
+    private SearchTask currentSearch;
+
+    // Alternativas de la última búsqueda (top-K) y la que se está viendo
+    private Alternatives alternatives;
+    private WarmStart warmStart;             // mejor combinación del último cálculo, para sembrar el siguiente
+    private int altIdx;
+    private JButton prevAltBtn, nextAltBtn, tableAltBtn;
+    private JLabel altLabel;
 
     // Días libres múltiples y bloqueo de subgrupo
     private final Map<DayOfWeek, JCheckBox> freeDayChecks = new LinkedHashMap<>();
     private JCheckBox sameSubgroupBox;
-
-    // (Opcional) Si usas “SP: sin prácticas” por asignatura, declara y usa este mapa:
-    private final Map<String, JCheckBox> skipPracticesBySubject = new HashMap<>();
-
-    private static final IntRef combosTested = new IntRef(0);
+    private JComboBox<String> engineCombo;
+    private JSpinner topKSpinner;
+    private Objective objective = Objective.OVERLAPS;     // pesos de "Preferencias…"
+    private int tableResolution = 60;                     // minutos por fila de la tabla "Horario"
+    private final Map<String, ScheduleEngine> engines = ScheduleEngine.available();
 
     /* ---------------------- main ---------------------- */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(BatchRunner.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("--cohorte")) {
+            System.exit(CohortRunner.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("--comprobar")) {
+            System.exit(ParallelCheck.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            int rc = ScheduleServer.run(Arrays.copyOfRange(args, 1, args.length));
+            if (rc != 0) System.exit(rc);
+            return;     // el HttpServer mantiene vivo el proceso
+        }
         Font uiFont;
         try { uiFont = new Font("Consolas", Font.PLAIN, 14); }
         catch (Exception e) { uiFont = new Font(Font.MONOSPACED, Font.PLAIN, 14); }
@@ -84,9 +123,49 @@ public final class Scheduler {
                     "Error", JOptionPane.ERROR_MESSAGE);
             System.exit(1);
         }
-        List<Session> raw = loadEntries(json);
-        allSubjects = buildSubjects(raw);
+        List<String> problems = new ArrayList<>();
+        allSubjects = CatalogueSnapshot.load(json, problems);
+        avisarDescartadas(problems);
+        compiled = new CompiledCatalogue(allSubjects);
+        results = ResultStore.open(ResultStore.fileFor(json));
         initGui(monoFont);
+        vigilarCatalogo(json, monoFont);
+    }
+
+    private void avisarDescartadas(List<String> problems) {
+        if (problems.isEmpty()) return;
+        JOptionPane.showMessageDialog(frame,
+                "Se han ignorado " + problems.size() + " entradas de horarios.json:\n"
+                        + String.join("\n", problems.subList(0, Math.min(20, problems.size())))
+                        + (problems.size() > 20 ? "\n…" : ""),
+                "Aviso", JOptionPane.WARNING_MESSAGE);
+    }
+
+    /* ---------------- Recarga de horarios.json ---------------- */
+    // Se lee y recompila en el hilo del vigilante; en el EDT sólo se cambia el catálogo y la botonera
+    private void vigilarCatalogo(File json, Font font) {
+        try {
+            CatalogueWatcher.start(json, new CatalogueWatcher.Listener() {
+                @Override public void reloaded(List<Subject> catalogue, List<String> problems) {
+                    CompiledCatalogue next = compiled.reload(catalogue);
+                    SwingUtilities.invokeLater(() -> {
+                        allSubjects = catalogue;
+                        compiled = next;
+                        subjectPicker.setCatalogue(catalogue);
+                        comboCounterLabel.setText("Catálogo recargado: " + catalogue.size() + " asignaturas");
+                        avisarDescartadas(problems);
+                    });
+                }
+
+                @Override public void failed(Exception e) {
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                            "No se pudo recargar horarios.json; se sigue con el anterior.\n" + e.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE));
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("No se vigilarán los cambios de horarios.json: " + e.getMessage());
+        }
     }
 
     /* ---------------------- GUI ---------------------- */
@@ -126,6 +205,27 @@ public final class Scheduler {
         sameSubgroupBox.setToolTipText("Si se activa, se elige un único subgrupo por asignatura para todos los tipos.");
         north.add(sameSubgroupBox);
 
+        // Fila: motor de búsqueda
+        JPanel engineRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 2));
+        engineRow.add(new JLabel("Motor:"));
+        engineCombo = new JComboBox<>(engines.keySet().toArray(new String[0]));
+        engineCombo.setFont(font);
+        engineCombo.setToolTipText("Backtracking paralelo reparte la búsqueda entre núcleos con el mismo resultado; "
+                + "Choco-solver usa propagación y reinicios.");
+        engineRow.add(engineCombo);
+        engineRow.add(new JLabel("Alternativas:"));
+        topKSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 50, 1));
+        topKSpinner.setFont(font);
+        topKSpinner.setToolTipText("Número de mejores combinaciones distintas que se guardan para comparar.");
+        engineRow.add(topKSpinner);
+        JButton prefsBtn = new JButton("Preferencias…");
+        prefsBtn.setFont(font);
+        prefsBtn.setToolTipText("Pesos de huecos, días con clase y horas de entrada y salida, además de los solapes.");
+        prefsBtn.addActionListener(e -> editarPreferencias(font));
+        engineRow.add(prefsBtn);
+        engineRow.setAlignmentX(Component.LEFT_ALIGNMENT);
+        north.add(engineRow);
+
         // Fila: Semestre
         JPanel semRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 2));
         semRow.add(new JLabel("Semestre:"));
@@ -137,83 +237,26 @@ public final class Scheduler {
 
         leftPanel.add(north, BorderLayout.NORTH);
 
-        // Botonera de asignaturas (NO estirada) + (opcional) mini-check “SP”
-        JPanel buttonPanel = new JPanel();
-        buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.Y_AXIS));
-        subjectButtons = new ArrayList<>();
-
-        // Ordenar por semestre → curso → nombre
-        List<Subject> sorted = new ArrayList<>(allSubjects);
-        Collator coll = Collator.getInstance(new Locale("es", "ES"));
-        sorted.sort(Comparator
-                .comparingInt((Subject s) -> Integer.parseInt(s.groups().get(0).sessions().get(0).semestre))
-                .thenComparingInt(s -> Integer.parseInt(s.groups().get(0).sessions().get(0).curso))
-                .thenComparing(Subject::name, coll));
-
-        int lastSem = -1, lastCurso = -1;
-        JPanel gridCursoPanel = null;
-        int gridRow = 0, gridCol = 0;
-
-        for (Subject subj : sorted) {
-            int sem = Integer.parseInt(subj.groups().get(0).sessions().get(0).semestre);
-            int cur = Integer.parseInt(subj.groups().get(0).sessions().get(0).curso);
-
-            if (sem != lastSem || cur != lastCurso) {
-                JLabel header = new JLabel("Semestre " + sem + " - Curso " + cur);
-                header.setFont(font.deriveFont(Font.BOLD));
-                header.setAlignmentX(Component.LEFT_ALIGNMENT);
-                buttonPanel.add(header);
-
-                gridCursoPanel = new JPanel(new GridBagLayout());
-                gridCursoPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-                gridCursoPanel.setBorder(BorderFactory.createEmptyBorder(2, 0, 8, 0));
-                buttonPanel.add(gridCursoPanel);
-
-                lastSem = sem; lastCurso = cur;
-                gridRow = 0; gridCol = 0;
-            }
-
-            String label = subj.name();
-            JToggleButton btn = new JToggleButton(label);
-            btn.setFont(font);
-            btn.setActionCommand(subj.name());
-            btn.setMargin(new Insets(2, 6, 2, 6));
-            btn.setFocusPainted(false);
-
-            // (Opcional) mini-check SP por asignatura
-            JCheckBox cbSP = new JCheckBox("SP");
-            cbSP.setFont(font.deriveFont(Math.max(10f, font.getSize()-3f)));
-            cbSP.setToolTipText("Sin prácticas: excluir 'Prácticas' y 'Prácticas aula' de esta asignatura.");
-            skipPracticesBySubject.put(subj.name(), cbSP);
-
-            JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
-            row.add(btn);
-            row.add(cbSP);
-
-            GridBagConstraints gbc = new GridBagConstraints();
-            gbc.gridx = gridCol;
-            gbc.gridy = gridRow;
-            gbc.anchor = GridBagConstraints.WEST;
-            gbc.insets = new Insets(2, 2, 2, 8);
-            gbc.fill = GridBagConstraints.NONE;
-            Objects.requireNonNull(gridCursoPanel).add(row, gbc);
-
-            subjectButtons.add(btn);
-
-            gridCol++;
-            if (gridCol == 2) { gridCol = 0; gridRow++; }
-        }
-
-        JScrollPane listScroll = new JScrollPane(buttonPanel);
-        listScroll.setPreferredSize(new Dimension(300, 520));
-        leftPanel.add(listScroll, BorderLayout.CENTER);
+        // Lista de asignaturas con filtro y check “SP” (virtual: ver SubjectPicker)
+        subjectPicker = new SubjectPicker(font);
+        subjectPicker.setCatalogue(allSubjects);
+        subjectPicker.setPreferredSize(new Dimension(300, 520));
+        leftPanel.add(subjectPicker, BorderLayout.CENTER);
 
         /* -------- Barra superior -------- */
         JPanel top = new JPanel(new BorderLayout());
-        JButton calcBtn = new JButton("Calcular horario");
+        calcBtn = new JButton("Calcular horario");
         calcBtn.setFont(font);
         calcBtn.addActionListener(e -> calcularHorario(font));
-        top.add(calcBtn, BorderLayout.WEST);
+        cancelBtn = new JButton("Cancelar");
+        cancelBtn.setFont(font);
+        cancelBtn.setEnabled(false);
+        cancelBtn.setToolTipText("Detiene la búsqueda y muestra la mejor combinación encontrada hasta ahora.");
+        cancelBtn.addActionListener(e -> { if (currentSearch != null) currentSearch.cancelSearch(); });
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        actions.add(calcBtn);
+        actions.add(cancelBtn);
+        top.add(actions, BorderLayout.WEST);
         comboCounterLabel = new JLabel("Combinaciones comprobadas: 0");
         comboCounterLabel.setFont(font);
         top.add(comboCounterLabel, BorderLayout.EAST);
@@ -227,10 +270,26 @@ public final class Scheduler {
         outputArea.setWrapStyleWord(true);
         outputArea.setMargin(new Insets(8,10,8,10));
         JScrollPane summaryScroll = new JScrollPane(outputArea);
-        summaryScroll.setMinimumSize(new Dimension(700, 300));
+
+        // Navegación entre alternativas (top-K)
+        JPanel altBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 2));
+        prevAltBtn = new JButton("◀");
+        nextAltBtn = new JButton("▶");
+        tableAltBtn = new JButton("Ver tabla");
+        altLabel = new JLabel(" ");
+        for (JComponent c : List.of(prevAltBtn, altLabel, nextAltBtn, tableAltBtn)) { c.setFont(font); altBar.add(c); }
+        prevAltBtn.addActionListener(e -> mostrarAlternativa(altIdx - 1));
+        nextAltBtn.addActionListener(e -> mostrarAlternativa(altIdx + 1));
+        tableAltBtn.addActionListener(e -> mostrarTablaAlternativa(font));
+        actualizarNavegacion();
+
+        JPanel summaryPanel = new JPanel(new BorderLayout());
+        summaryPanel.add(altBar, BorderLayout.NORTH);
+        summaryPanel.add(summaryScroll, BorderLayout.CENTER);
+        summaryPanel.setMinimumSize(new Dimension(700, 300));
 
         /* -------- SPLIT HORIZONTAL con control deslizante -------- */
-        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftPanel, summaryScroll);
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftPanel, summaryPanel);
         split.setOneTouchExpandable(true);      // flechas para mover más rápido
         split.setContinuousLayout(true);
         split.setDividerSize(10);
@@ -255,13 +314,38 @@ public final class Scheduler {
         freeDayChecks.put(d, cb);
     }
 
+    // Pesos del objetivo (Objective); 0 = no importa
+    private void editarPreferencias(Font font) {
+        JSpinner solapes = pesoSpinner(objective.overlaps(), font), huecos = pesoSpinner(objective.gapPerHour(), font),
+                dias = pesoSpinner(objective.perDay(), font), madrugar = pesoSpinner(objective.earlyStart(), font),
+                tarde = pesoSpinner(objective.lateFinish(), font);
+        JSpinner antesDe = new JSpinner(new SpinnerNumberModel(objective.earlyBefore() / 60, 0, 24, 1));
+        JSpinner despuesDe = new JSpinner(new SpinnerNumberModel(objective.lateAfter() / 60, 0, 24, 1));
+        JPanel p = new JPanel(new GridLayout(0, 2, 8, 4));
+        p.add(new JLabel("Cada solape:")); p.add(solapes);
+        p.add(new JLabel("Cada hora de hueco:")); p.add(huecos);
+        p.add(new JLabel("Cada día con clase:")); p.add(dias);
+        p.add(new JLabel("Cada día que se entra antes de las (h):")); p.add(antesDe);
+        p.add(new JLabel("   peso:")); p.add(madrugar);
+        p.add(new JLabel("Cada día que se sale después de las (h):")); p.add(despuesDe);
+        p.add(new JLabel("   peso:")); p.add(tarde);
+        if (JOptionPane.showConfirmDialog(frame, p, "Preferencias", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) return;
+        objective = new Objective((Integer) solapes.getValue(), (Integer) huecos.getValue(), (Integer) dias.getValue(),
+                (Integer) madrugar.getValue(), (Integer) antesDe.getValue() * 60,
+                (Integer) tarde.getValue(), (Integer) despuesDe.getValue() * 60);
+    }
+
+    private static JSpinner pesoSpinner(int value, Font font) {
+        JSpinner s = new JSpinner(new SpinnerNumberModel(value, 0, Objective.MAX_WEIGHT, 1));
+        s.setFont(font);
+        return s;
+    }
+
     /* --------------- CÁLCULO DE HORARIO --------------- */
     private void calcularHorario(final Font font) {
-        combosTested.val = 0;
-
         // 1) Recoger asignaturas marcadas
-        List<String> seleccionadas = new ArrayList<>();
-        for (JToggleButton btn : subjectButtons) if (btn.isSelected()) seleccionadas.add(btn.getActionCommand());
+        List<String> seleccionadas = subjectPicker.selected();
         if (seleccionadas.isEmpty()) {
             JOptionPane.showMessageDialog(frame, "Debes seleccionar al menos una asignatura.");
             return;
@@ -279,62 +363,183 @@ public final class Scheduler {
             return;
         }
 
-        // 4) Filtrar sessions por semestre y asignaturas
-        List<Subject> baseSubjects = allSubjects.stream()
-                .filter(s -> seleccionadas.contains(s.name()))
-                .map(s -> filterSubjectBySemester(s, semAct))
-                .filter(Objects::nonNull)
-                .toList();
-
-        // (Opcional) aplicar “sin prácticas” si marcaste SP en la UI
-        Set<String> sp = new HashSet<>();
-        for (String name : seleccionadas) {
-            JCheckBox cb = skipPracticesBySubject.get(name);
-            if (cb != null && cb.isSelected()) sp.add(name);
+        // 4) (Opcional) “sin prácticas” si marcaste SP en la UI
+        Set<String> sp = subjectPicker.skipPractices();
+        sp.retainAll(seleccionadas);
+
+        // 5) Semestre/asignaturas/SP y bloqueo de subgrupo o mezcla por tipo
+        ScheduleQuery query = new ScheduleQuery(seleccionadas, semAct, diasLibres, sp, sameSubgroupBox.isSelected(), objective);
+
+        // 6) Recortar del catálogo compilado y buscar en segundo plano (la ventana sigue respondiendo)
+        ScheduleEngine engine = engines.get(Objects.requireNonNull(engineCombo.getSelectedItem()).toString());
+        int k = (Integer) topKSpinner.getValue();
+        new SearchTask(query, engine, k, font).execute();
+    }
+
+    /**
+     * Búsqueda fuera del EDT: prepara el problema (sembrado con la combinación
+     * anterior), busca y publica cada incumbente que mejora; un Timer refresca el
+     * contador de nodos. Cancelar detiene la búsqueda y se muestran las mejores
+     * combinaciones encontradas hasta ese momento.
+     */
+    private final class SearchTask extends SwingWorker<List<Solution>, Solution> {
+        private static final int PROGRESS_MS = 250;
+
+        private final ScheduleQuery query;
+        private final ScheduleEngine engine;
+        private final int k;
+        private final Font font;
+        private final SearchMonitor monitor = new SearchMonitor(this::publish);
+        private final WarmStart warm = warmStart;
+        private final CompiledCatalogue catalogue = compiled;      // si se recarga a mitad, se termina con éste
+        private final ResultStore store = results;
+        private final Timer progress;
+        private final long startNanos = System.nanoTime();
+        private volatile Prepared prepared;
+
+        SearchTask(ScheduleQuery query, ScheduleEngine engine, int k, Font font) {
+            this.query = query;
+            this.engine = engine;
+            this.k = k;
+            this.font = font;
+            this.progress = new Timer(PROGRESS_MS, e -> showProgress());
+
+            currentSearch = this;
+            calcBtn.setEnabled(false);
+            cancelBtn.setEnabled(true);
+            alternatives = null;
+            actualizarNavegacion();
+            outputArea.setText("Buscando…");
+            showProgress();
+            progress.start();
         }
-        baseSubjects = applySkipPractices(baseSubjects, sp);
 
-        if (baseSubjects.isEmpty()) {
-            JOptionPane.showMessageDialog(frame, "No quedan sesiones tras aplicar filtros (semestre/días libres/sin prácticas).");
-            return;
+        void cancelSearch() { monitor.cancel(); }
+
+        @Override protected List<Solution> doInBackground() {
+            // La primera consulta de cada semestre/variante compila el catálogo
+            prepared = catalogue.prepare(query, warm, k, monitor);
+            if (prepared == null) return List.of();
+            // Ya calculada en esta o en otra ejecución con el mismo catálogo
+            long t = System.nanoTime();
+            SolutionCache.Key key = SolutionCache.Key.of(catalogue.version(), query, engine, k);
+            List<Solution> saved = store.get(key, prepared.problem());
+            monitor.phase("disco", t);
+            if (saved != null) return saved;
+            // La combinación anterior reparada se ve al instante mientras se busca
+            List<Solution> seeds = prepared.problem().seeds();
+            if (!seeds.isEmpty()) monitor.improved(seeds.get(0));
+            if (prepared.problem().seedBound(k) == 0) return seeds;   // sin solapes: ya es óptimo
+            t = System.nanoTime();
+            List<Solution> sols;
+            try { sols = engine.solve(prepared.problem(), k, monitor); }
+            finally { monitor.phase("buscar", t); }
+            if (!monitor.isCancelled()) store.put(key, sols);
+            return sols;
         }
 
-        // 5) Bloqueo de subgrupo o mezcla por tipo
-        boolean lockSameSubgroup = sameSubgroupBox.isSelected();
-        List<Subject> subjects = lockSameSubgroup ? baseSubjects : expandSubjectsByTipo(baseSubjects);
+        @Override protected void process(List<Solution> chunks) {
+            // Sólo interesa el último incumbente del lote
+            if (isDone()) return;
+            Solution last = chunks.get(chunks.size() - 1);
+            List<Group> mejor = prepared.groupsOf(last);
+            outputArea.setText("Buscando…\n\n" + buildSummary("Mejor combinación provisional", prepared.subjects(), mejor,
+                    prepared.equivalentsOf(last), last.conflicts(), detectConflicts(porDia(mejor)), query.semester()));
+            outputArea.setCaretPosition(0);
+        }
 
-        if (subjects.isEmpty()) {
-            JOptionPane.showMessageDialog(frame, "No hay sesiones para esas asignaturas en semestre " + semAct + ".");
-            return;
+        @Override protected void done() {
+            progress.stop();
+            showProgress();
+            currentSearch = null;
+            calcBtn.setEnabled(true);
+            cancelBtn.setEnabled(false);
+
+            List<Solution> sols;
+            try { sols = get(); }
+            catch (InterruptedException | ExecutionException ex) {
+                outputArea.setText("Error durante la búsqueda: " + ex.getMessage());
+                return;
+            }
+            if (prepared == null) {
+                outputArea.setText("");
+                JOptionPane.showMessageDialog(frame, "No quedan sesiones tras aplicar filtros (semestre/días libres/sin prácticas).");
+                return;
+            }
+            if (sols.isEmpty()) {
+                mostrarEstadisticas(sols);
+                outputArea.setText(monitor.isCancelled()
+                        ? "Búsqueda cancelada antes de encontrar ninguna combinación."
+                        : "No hay combinación válida que respete los días libres y el semestre seleccionados.");
+                return;
+            }
+
+            // 7) Guardar alternativas, mostrar la mejor y su tabla (modal)
+            warmStart = WarmStart.of(prepared, sols.get(0));
+            alternatives = new Alternatives(prepared, query.semester(), sols, monitor.isCancelled());
+            long t = System.nanoTime();
+            mostrarAlternativa(0);
+            monitor.phase("mostrar", t);
+            mostrarEstadisticas(sols);
+            mostrarTablaAlternativa(font);
+        }
+
+        // Estadísticas del cálculo: JFR y tooltip del contador
+        private void mostrarEstadisticas(List<Solution> sols) {
+            SearchStats stats = monitor.stats();
+            stats.emit(ScheduleEngine.nameOf(engine), prepared, k, sols.isEmpty() ? -1 : sols.get(0).conflicts(),
+                    monitor.isCancelled());
+            comboCounterLabel.setToolTipText("<html><pre>" + stats.toText() + "</pre></html>");
         }
 
-        // 6) Enumerar combinaciones (optimizado)
-        List<List<Group>> opciones = subjects.stream().map(Subject::groups).toList();
-
-        // Mapear cada grupo a un id entero y construir dominios como arrays de ids
-        List<Group> global = new ArrayList<>();
-        List<int[]> domains = new ArrayList<>();
-        Map<Group, Integer> idOf = new IdentityHashMap<>();
-        for (List<Group> dom : opciones) {
-            int[] ids = new int[dom.size()];
-            for (int i=0;i<dom.size();i++) {
-                Group g = dom.get(i);
-                Integer id = idOf.get(g);
-                if (id == null) { id = global.size(); idOf.put(g, id); global.add(g); }
-                ids[i] = id;
+        private void showProgress() {
+            long nodes = monitor.nodes();
+            double secs = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+            int best = monitor.bestConflicts();
+            comboCounterLabel.setText(String.format("Combinaciones comprobadas: %,d (%,.0f/s)%s",
+                    nodes, nodes / secs, best == Integer.MAX_VALUE ? "" : " · mejor: " + best + " solapes"));
+        }
+    }
+
+    /**
+     * Problema listo para buscar, con la correspondencia id → grupo y dominio → asignatura.
+     * groupIds: id estable de cada grupo en {@code variant} del CompiledCatalogue.
+     * classes: ids intercambiables con cada representante (ver Symmetry); null si no se redujo.
+     */
+    record Prepared(List<Subject> subjects, List<Group> global, int[] order, SearchProblem problem,
+                    CompiledCatalogue.Variant variant, int[] groupIds, int[][] classes) {
+        /** Grupos de una solución, en el mismo orden que {@code subjects}. */
+        List<Group> groupsOf(Solution sol) {
+            Group[] out = new Group[subjects.size()];
+            for (int k = 0; k < order.length; k++) out[order[k]] = global.get(sol.ids()[k]);
+            return Arrays.asList(out);
+        }
+
+        /** Grupos equivalentes a los de una solución (sin el elegido), en el orden de {@code subjects}. */
+        List<List<Group>> equivalentsOf(Solution sol) {
+            List<List<Group>> out = new ArrayList<>(Collections.nCopies(subjects.size(), List.of()));
+            if (classes == null) return out;
+            for (int k = 0; k < order.length; k++) {
+                int[] members = classes[sol.ids()[k]];
+                if (members == null || members.length < 2) continue;
+                List<Group> eq = new ArrayList<>();
+                for (int id : members) if (id != sol.ids()[k]) eq.add(global.get(id));
+                out.set(order[k], eq);
             }
-            domains.add(ids);
+            return out;
         }
 
-        // Matriz de conflictos pareados
-        final int N = global.size();
-        int[][] conflictPairs = new int[N][N];
-        for (int i=0;i<N;i++) for (int j=i+1;j<N;j++) {
-            int c = countPairwiseConflicts(global.get(i), global.get(j));
-            conflictPairs[i][j] = c;
-            conflictPairs[j][i] = c;
+        Prepared withProblem(SearchProblem p) {
+            return new Prepared(subjects, global, order, p, variant, groupIds, classes);
         }
+    }
 
+    /**
+     * Ordena dominios y valores para la búsqueda. Las ids son locales (0..N) y
+     * {@code conflictPairs} es la matriz ya recortada del catálogo compilado.
+     */
+    static Prepared order(List<Subject> subjects, List<Group> global, List<int[]> domains, WeekMask[] masks,
+                          int[][] conflictPairs, int freeDayBits, CompiledCatalogue.Variant variant, int[] groupIds) {
         // Heurística: ordenar dominios por tamaño (fail-first)
         List<Integer> order = new ArrayList<>();
         for (int i=0;i<domains.size();i++) order.add(i);
@@ -349,48 +554,64 @@ public final class Scheduler {
             for (int i = 0; i < dom.length; i++) dom[i] = boxed[i];
         }
 
-        // Zobrist hashing para memo
-        long[] zobrist = new long[N];
-        Random rnd = new Random(1234567);
-        for (int i=0;i<N;i++) zobrist[i] = rnd.nextLong();
-        Map<Long, Integer> memo = new HashMap<>();
-
-        // Búsqueda
-        List<Integer> bestChoiceIds = new ArrayList<>();
-        List<Group> mejor = new ArrayList<>();
-        IntRef bestSol = new IntRef(Integer.MAX_VALUE);
-
-        backtrackOpt(0, orderedDomains, new ArrayList<>(), 0, diasLibres, bestSol, bestChoiceIds,
-                conflictPairs, global, memo, zobrist);
-
-        for (int id : bestChoiceIds) mejor.add(global.get(id));
-
-        comboCounterLabel.setText("Combinaciones comprobadas: " + combosTested.val);
-        if (mejor.isEmpty()) {
-            outputArea.setText("No hay combinación válida que respete los días libres y el semestre seleccionados.");
-            return;
-        }
+        SearchProblem problem = new SearchProblem(orderedDomains, conflictPairs, masks, freeDayBits);
+        return new Prepared(subjects, global, order.stream().mapToInt(Integer::intValue).toArray(), problem, variant, groupIds, null);
+    }
 
-        // 7) Construir estructuras por día y conflictos
+    static Map<DayOfWeek, List<Session>> porDia(List<Group> mejor) {
         Map<DayOfWeek, List<Session>> porDia = new TreeMap<>();
         for (Group g : mejor) for (Session s : g.sessions())
             porDia.computeIfAbsent(s.day(), k -> new ArrayList<>()).add(s);
-        Set<Session> enConf = detectConflicts(porDia);
+        return porDia;
+    }
 
-        // 8) Mostrar tabla (modal) y listado
-        mostrarTabla(porDia, enConf, font);
-        outputArea.setText(buildSummary(subjects, mejor, bestSol.val, enConf, semAct));
+    /* ---------- Alternativas (top-K): navegación en resumen y tabla ---------- */
+    private record Alternatives(Prepared prepared, String semestre, List<Solution> solutions, boolean cancelled) {}
+
+    private void mostrarAlternativa(int i) {
+        if (alternatives == null || i < 0 || i >= alternatives.solutions().size()) return;
+        altIdx = i;
+        Solution sol = alternatives.solutions().get(i);
+        List<Group> grupos = alternatives.prepared().groupsOf(sol);
+        int n = alternatives.solutions().size();
+        String titulo = i == 0 ? "Mejor combinación" : "Alternativa " + (i + 1) + " de " + n;
+        String aviso = alternatives.cancelled() ? "⏹ Búsqueda cancelada: mejores combinaciones encontradas hasta ahora.\n\n" : "";
+        outputArea.setText(aviso + buildSummary(titulo, alternatives.prepared().subjects(), grupos,
+                alternatives.prepared().equivalentsOf(sol), sol.conflicts(),
+                detectConflicts(porDia(grupos)), alternatives.semestre()));
         outputArea.setCaretPosition(0);
+        actualizarNavegacion();
+    }
+
+    private void mostrarTablaAlternativa(Font font) {
+        if (alternatives == null) return;
+        Map<DayOfWeek, List<Session>> porDia = porDia(alternatives.prepared().groupsOf(alternatives.solutions().get(altIdx)));
+        mostrarTabla(porDia, detectConflicts(porDia), font);
+    }
+
+    private void actualizarNavegacion() {
+        int n = alternatives == null ? 0 : alternatives.solutions().size();
+        prevAltBtn.setEnabled(n > 0 && altIdx > 0);
+        nextAltBtn.setEnabled(n > 0 && altIdx < n - 1);
+        tableAltBtn.setEnabled(n > 0);
+        if (n == 0) { altLabel.setText("Alternativa –"); return; }
+        Solution sol = alternatives.solutions().get(altIdx);
+        altLabel.setText(String.format("Alternativa %d/%d · %d solapes", altIdx + 1, n, sol.conflicts())
+                + (alternatives.prepared().problem().objective().soft() ? " · coste " + sol.cost() : ""));
     }
 
     /* ---------- buildSummary: resumen textual ---------- */
-    private static String buildSummary(List<Subject> subjects, List<Group> mejor, int solap, Set<Session> enConf, String semestre) {
+    static String buildSummary(String titulo, List<Subject> subjects, List<Group> mejor, List<List<Group>> equivalentes,
+                               int solap, Set<Session> enConf, String semestre) {
         StringBuilder sb = new StringBuilder();
-        sb.append("Mejor combinación (Semestre ").append(semestre).append("):\n\n");
+        sb.append(titulo).append(" (Semestre ").append(semestre).append("):\n\n");
         for (int i = 0; i < subjects.size(); i++) {
             Subject subj = subjects.get(i);
             Group g = mejor.get(i);
-            sb.append(subj.name()).append(" → Grupo ").append(g.code()).append("\n");
+            sb.append(subj.name()).append(" → Grupo ").append(g.code());
+            if (!equivalentes.get(i).isEmpty())
+                sb.append("  (o igual: ").append(equivalentes.get(i).stream().map(Group::code).collect(Collectors.joining(", "))).append(")");
+            sb.append("\n");
             g.sessions().stream()
                     .sorted(Comparator.comparing(Session::day).thenComparing(Session::start))
                     .forEach(s -> sb.append(String.format("   - %-15s %s %s–%s%n",
@@ -422,69 +643,19 @@ public final class Scheduler {
         return sb.toString();
     }
 
-    /* --------------- BACKTRACK & HELPERS --------------- */
-
-    private void backtrackOpt(
-            int idx,
-            List<int[]> domains,
-            List<Integer> curIds,
-            int curConf,
-            Set<DayOfWeek> diasLibres,
-            IntRef best,
-            List<Integer> bestChoiceIds,
-            int[][] conflictPairs,
-            List<Group> global,
-            Map<Long,Integer> memo,
-            long[] zobrist
-    ) {
-        if (best.val == 0) return;
-
-        long hash = 0L;
-        for (int id : curIds) hash ^= zobrist[id];
-        long key = (((long)idx) << 32) ^ (hash ^ (hash >>> 32));
-        Integer seen = memo.get(key);
-        if (seen != null && curConf >= seen) return;
-        memo.put(key, curConf);
-
-        if (idx == domains.size()) {
-            if (curConf < best.val) {
-                best.val = curConf;
-                bestChoiceIds.clear();
-                bestChoiceIds.addAll(curIds);
-            }
-            return;
-        }
-
-        int[] dom = domains.get(idx);
-        for (int id : dom) {
-            if (!diasLibres.isEmpty() && groupHasAnyDay(global.get(id), diasLibres)) continue;
-
-            combosTested.val++;
-            int inc = 0;
-            for (int sel : curIds) inc += conflictPairs[id][sel];
-            int next = curConf + inc;
-            if (next >= best.val) continue;
-
-            curIds.add(id);
-            backtrackOpt(idx+1, domains, curIds, next, diasLibres, best, bestChoiceIds,
-                    conflictPairs, global, memo, zobrist);
-            curIds.remove(curIds.size()-1);
-
-            if (best.val == 0) return;
-        }
-    }
+    /* --------------- HELPERS --------------- */
 
-    private static Subject filterSubjectBySemester(Subject subj, String semestre) {
+    static Subject filterSubjectBySemester(Subject subj, String semestre) {
         List<Group> gruposFiltrados = new ArrayList<>();
         for (Group g : subj.groups()) {
             List<Session> ses = g.sessions().stream().filter(s -> semestre.equals(s.semestre())).toList();
-            if (!ses.isEmpty()) gruposFiltrados.add(new Group(g.code(), ses));
+            if (!ses.isEmpty()) gruposFiltrados.add(new Group(g.code(), ses, g.capacities()));
         }
         return gruposFiltrados.isEmpty() ? null : new Subject(subj.name(), gruposFiltrados);
     }
 
     // Excluir prácticas para las asignaturas marcadas “SP”
-    private static List<Subject> applySkipPractices(List<Subject> baseSubjects, Set<String> spSubjects){
+    static List<Subject> applySkipPractices(List<Subject> baseSubjects, Set<String> spSubjects){
         if (spSubjects.isEmpty()) return baseSubjects;
         List<Subject> out = new ArrayList<>();
         for (Subject subj : baseSubjects) {
@@ -496,7 +667,7 @@ public final class Scheduler {
                     String t = normalizeTipo(s.tipo());
                     if (!"Prácticas".equals(t) && !"Prácticas aula".equals(t)) keep.add(s);
                 }
-                if (!keep.isEmpty()) filteredGroups.add(new Group(g.code(), keep));
+                if (!keep.isEmpty()) filteredGroups.add(new Group(g.code(), keep, g.capacities()));
             }
             if (!filteredGroups.isEmpty()) out.add(new Subject(subj.name(), filteredGroups));
         }
@@ -509,83 +680,15 @@ public final class Scheduler {
         return sum;
     }
 
-    private static int countPairwiseConflicts(Group a, Group b){
-        int c = 0;
-        for (Session sa : a.sessions())
-            for (Session sb : b.sessions())
-                if (sa.overlaps(sb)) c++;
-        return c;
-    }
-
-    private static boolean groupHasAnyDay(Group g, Set<DayOfWeek> dias){
-        for (Session s : g.sessions()) if (dias.contains(s.day())) return true;
-        return false;
-    }
-
     /* ------------------ GUI: Tabla ------------------ */
+    // Celdas precalculadas en TimetableModel; el renderer pinta sin crear componentes
     private void mostrarTabla(Map<DayOfWeek, List<Session>> porDia, Set<Session> enConf, Font font) {
-        LocalTime min = LocalTime.of(23,59), max = LocalTime.of(0,0);
-        for (List<Session> ls : porDia.values())
-            for (Session s : ls) { if (s.start().isBefore(min)) min = s.start(); if (s.end().isAfter(max)) max = s.end(); }
-        min = min.withMinute(0);
-        if (max.getMinute() > 0) max = max.plusHours(1).withMinute(0);
-        int rows = Math.max(1, max.getHour() - min.getHour());
-
-        String[] cols = {"Hora","Lun","Mar","Mié","Jue","Vie"};
-        Object[][] data = new Object[rows][6];
-        Map<Point, List<Session>> cellSessions = new HashMap<>();
-
-        DayOfWeek[] dias = {DayOfWeek.MONDAY,DayOfWeek.TUESDAY,DayOfWeek.WEDNESDAY,DayOfWeek.THURSDAY,DayOfWeek.FRIDAY};
-        for (int r=0;r<rows;r++) {
-            LocalTime slotStart = min.plusHours(r), slotEnd = slotStart.plusHours(1);
-            data[r][0] = String.format("%02d:%02d-%02d:%02d", slotStart.getHour(),0, slotEnd.getHour(),0);
-            for (int d=0; d<dias.length; d++) {
-                List<Session> inCell = new ArrayList<>();
-                for (Session s : porDia.getOrDefault(dias[d], List.of())) {
-                    if (s.start().isBefore(slotEnd) && s.end().isAfter(slotStart)) {
-                        inCell.add(s);
-                    }
-                }
-                if (!inCell.isEmpty()) {
-                    cellSessions.put(new Point(r,d+1), inCell);
-                    data[r][d+1] = inCell.stream().map( s->s.curso()+"º"+s.asignatura()+"["+s.grupo()+"]").reduce((a,b)->a+", "+b).orElse("");
-                } else data[r][d+1] = "";
-            }
-        }
-
-        JTable table = new JTable(new DefaultTableModel(data, cols) { public boolean isCellEditable(int r,int c){return false;} });
+        TimetableModel model = new TimetableModel(porDia, enConf, tableResolution);
+        JTable table = new JTable(model);
         table.setFont(font);
         table.setRowHeight(font.getSize()+16);
         table.getTableHeader().setFont(font.deriveFont(Font.BOLD));
-
-        // Renderer (colores y bandas de conflicto)
-        TableCellRenderer rend = new DefaultTableCellRenderer() {
-            public Component getTableCellRendererComponent(JTable t,Object val,boolean sel,boolean foc,int row,int col){
-                Component c = super.getTableCellRendererComponent(t,val,sel,foc,row,col);
-                if (col==0){
-                    c.setBackground(Color.WHITE);
-                    if (c instanceof JComponent jc)
-                        jc.setBorder(BorderFactory.createMatteBorder(1,1,1,1,new Color(200,200,200)));
-                    return c;
-                }
-                List<Session> ss = cellSessions.get(new Point(row,col));
-                if (ss!=null && ss.size()>1) {
-                    return new SplitCellPanel(ss, enConf, font);
-                } else if (ss!=null && ss.size()==1) {
-                    Session s = ss.get(0);
-                    toLowerCase(c, s);
-                    if (c instanceof JComponent jc){
-                        boolean conflict = enConf.contains(s);
-                        int top = conflict ? 3 : 1;
-                        jc.setBorder(BorderFactory.createMatteBorder(top,1,1,1, conflict ? new Color(255,235,59) : new Color(200,200,200)));
-                    }
-                } else if (c instanceof JComponent jc) {
-                    jc.setBackground(Color.WHITE);
-                    jc.setBorder(BorderFactory.createMatteBorder(1,1,1,1,new Color(200,200,200)));
-                }
-                return c;
-            }
-        };
+        TimetableModel.Renderer rend = new TimetableModel.Renderer(model, font);
         for(int i=0;i<table.getColumnCount();i++) table.getColumnModel().getColumn(i).setCellRenderer(rend);
 
         // --- Tabla ancha ---
@@ -597,80 +700,45 @@ public final class Scheduler {
         for (int i=1;i<cm.getColumnCount();i++) cm.getColumn(i).setPreferredWidth(dayW);
 
         int totalWidth  = timeW + dayW * (cm.getColumnCount()-1) + 40; // margen scroll
-        int totalHeight = Math.min(900, (rows+1)*(font.getSize()+16)+120);
+        int totalHeight = Math.min(900, (model.getRowCount()+1)*(font.getSize()+16)+120);
 
         JScrollPane scroll = new JScrollPane(table);
         scroll.setPreferredSize(new Dimension(totalWidth, totalHeight));
 
+        // Resolución de las franjas (se recuerda para la próxima tabla)
+        JPanel resRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 2));
+        resRow.add(new JLabel("Franjas:"));
+        JComboBox<String> resCombo = new JComboBox<>();
+        for (int m : TimetableModel.RESOLUTIONS) resCombo.addItem(m + " min");
+        resCombo.setSelectedItem(tableResolution + " min");
+        resCombo.setFont(font);
+        resCombo.addActionListener(e -> {
+            tableResolution = TimetableModel.RESOLUTIONS[resCombo.getSelectedIndex()];
+            model.setResolution(tableResolution);
+        });
+        resRow.add(resCombo);
+
         JDialog dlg = new JDialog(frame, "Horario", true);
-        dlg.getContentPane().add(scroll);
+        dlg.getContentPane().add(resRow, BorderLayout.NORTH);
+        dlg.getContentPane().add(scroll, BorderLayout.CENTER);
         dlg.pack();
         dlg.setLocationRelativeTo(frame);
         dlg.setVisible(true);
     }
 
-    private static void toLowerCase(Component c, Session s) {
-        String tipo = s.tipo().toLowerCase();
-        Color base = Color.WHITE;
-        if (tipo.contains("prácticas aula") || tipo.contains("practicas aula")) base = new Color(173,216,230);
-        else if (tipo.contains("prácticas") || tipo.contains("practicas")) base = new Color(144,238,144);
-        c.setBackground(base);
-    }
-
-    static class SplitCellPanel extends JPanel {
-        SplitCellPanel(List<Session> ss, Set<Session> enConf, Font font){
-            setLayout(new GridLayout(1, Math.max(1, ss.size()), 1, 0));
-            setBorder(BorderFactory.createMatteBorder(1,1,1,1,new Color(200,200,200)));
-            for (Session s: ss){
-                JPanel slot = new JPanel(new BorderLayout());
-                toLowerCase(slot, s);
-                if (enConf.contains(s)){
-                    JPanel stripe = new JPanel();
-                    stripe.setPreferredSize(new Dimension(1,3));
-                    stripe.setBackground(new Color(255,235,59));
-                    slot.add(stripe, BorderLayout.NORTH);
-                }
-                JLabel lbl = new JLabel(s.curso()+"º"+s.asignatura()+"["+s.grupo()+"]", SwingConstants.CENTER);
-                lbl.setFont(font.deriveFont(Font.PLAIN, Math.max(10, font.getSize()-2)));
-                lbl.setOpaque(false);
-                slot.add(lbl, BorderLayout.CENTER);
-                slot.setBorder(BorderFactory.createMatteBorder(0,0,0,0,new Color(200,200,200)));
-                add(slot);
-            }
-        }
-    }
-
     /* ------------------ JSON & Utils ------------------ */
-    private static List<Session> loadEntries(File file) throws Exception {
-        ObjectMapper map = new ObjectMapper();
-        map.configure(JsonParser.Feature.ALLOW_COMMENTS,true);
-        List<JsonEntry> entries = map.readValue(file, new TypeReference<>(){});
-        List<Session> out = new ArrayList<>();
-        for (JsonEntry e : entries) {
-            String code = e.grupo() + (e.subgrupo()==null?"":"-"+e.subgrupo());
-            DayOfWeek day = parseDay(e.dia());
-            LocalTime st = LocalTime.parse(e.inicio(), DateTimeFormatter.ofPattern("H:mm"));
-            LocalTime en = LocalTime.parse(e.fin(),    DateTimeFormatter.ofPattern("H:mm"));
-            out.add(new Session(day, st, en, e.asignatura(), code, e.tipo(), e.curso(), e.semestre()));
-        }
-        return out;
-    }
-
-    private static List<Subject> buildSubjects(List<Session> sessions) {
-        Map<String, Map<String, List<Session>>> tmp = new LinkedHashMap<>();
-        for (Session s : sessions)
-            tmp.computeIfAbsent(s.asignatura(),k->new LinkedHashMap<>())
-                    .computeIfAbsent(s.grupo(),k->new ArrayList<>()).add(s);
-        List<Subject> res = new ArrayList<>();
-        tmp.forEach((asig,map)->{
-            List<Group> gl = new ArrayList<>();
-            map.forEach((code,list)->gl.add(new Group(code,list)));
-            res.add(new Subject(asig,gl));
-        });
-        return res;
+    /**
+     * Catálogo de horarios.json, a través de su instantánea binaria (ver CatalogueSnapshot).
+     * Las entradas descartadas del JSON se avisan por la salida de error.
+     */
+    static List<Subject> loadCatalogue(File file) throws IOException {
+        List<String> problems = new ArrayList<>();
+        List<Subject> subjects = CatalogueSnapshot.load(file, problems);
+        for (String p : problems) System.err.println(file.getName() + ", " + p);
+        return subjects;
     }
 
-    private static DayOfWeek parseDay(String t) {
+    static DayOfWeek parseDay(String t) {
         return switch(t.toLowerCase(Locale.ROOT)){
             case "lunes","lun" -> DayOfWeek.MONDAY;
             case "martes","mar" -> DayOfWeek.TUESDAY;
@@ -681,7 +749,7 @@ public final class Scheduler {
         };
     }
 
-    private static Set<Session> detectConflicts(Map<DayOfWeek, List<Session>> porDia) {
+    static Set<Session> detectConflicts(Map<DayOfWeek, List<Session>> porDia) {
         Set<Session> res = new HashSet<>();
         List<Session> all = porDia.values().stream().flatMap(List::stream).toList();
         for(int i=0;i<all.size();i++)
@@ -691,7 +759,7 @@ public final class Scheduler {
     }
 
     /* ---------- Mezcla de subgrupos por tipo ---------- */
-    private static String normalizeTipo(String tipoRaw){
+    static String normalizeTipo(String tipoRaw){
         if (tipoRaw == null) return "Teoría";
         String t = tipoRaw.toLowerCase(Locale.ROOT);
         if (t.contains("prácticas aula") || t.contains("practicas aula")) return "Prácticas aula";
@@ -703,11 +771,13 @@ public final class Scheduler {
      * Expande cada asignatura en varias “sub-asignaturas” por tipo de sesión.
      * Resultado: por cada (Asignatura, Tipo) se elige 1 grupo de ese tipo (permite mezclar subgrupos).
      */
-    private static List<Subject> expandSubjectsByTipo(List<Subject> baseSubjects){
+    static List<Subject> expandSubjectsByTipo(List<Subject> baseSubjects){
         List<Subject> out = new ArrayList<>();
         for (Subject subj : baseSubjects) {
             Map<String, Map<String, List<Session>>> byTipo = new LinkedHashMap<>();
+            Map<String, Map<String, Integer>> capacity = new HashMap<>();
             for (Group g : subj.groups()) {
+                capacity.put(g.code(), g.capacities());
                 for (Session s : g.sessions()) {
                     String tipo = normalizeTipo(s.tipo());
                     byTipo.computeIfAbsent(tipo, k -> new LinkedHashMap<>())
@@ -719,17 +789,11 @@ public final class Scheduler {
                 String tipo = e.getKey();
                 List<Group> groups = new ArrayList<>();
                 for (Map.Entry<String, List<Session>> ge : e.getValue().entrySet()) {
-                    groups.add(new Group(ge.getKey(), ge.getValue()));
+                    groups.add(new Group(ge.getKey(), ge.getValue(), capacity.get(ge.getKey())));
                 }
                 out.add(new Subject(subj.name() + " [" + tipo + "]", groups));
             }
         }
         return out;
     }
-
-    /* ---------- Helpers ---------- */
-    public record JsonEntry(
-            String asignatura, String grupo, String subgrupo,
-            String tipo, String dia, String inicio, String fin, String curso, String semestre) {}
-    private static class IntRef { int val; IntRef(int v){val=v;} }
 }
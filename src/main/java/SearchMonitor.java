@@ -0,0 +1,75 @@
+// SearchMonitor.java
+// -----------------------------------------------------------------------------
+// Estado compartido de una búsqueda en curso, seguro entre hilos: nodos
+// explorados, mejor coste encontrado (y sus solapamientos), cancelación
+// cooperativa y aviso de cada incumbente que mejora al anterior.
+//
+// También reúne las estadísticas del cálculo (SearchStats): los motores suman
+// sus contadores al terminar cada tarea y cada fase anota su duración.
+// -----------------------------------------------------------------------------
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+final class SearchMonitor {
+    /** Recibe cada solución que mejora a la mejor conocida (desde el hilo de búsqueda). */
+    interface Listener { void onIncumbent(Solution s); }
+
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder prunes = new LongAdder(), freeDaySkips = new LongAdder();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Listener listener;
+    private volatile boolean cancelled;
+    private volatile int bestCost = Integer.MAX_VALUE, bestConflicts = Integer.MAX_VALUE;
+    private int improvements;
+
+    SearchMonitor() { this(null); }
+
+    SearchMonitor(Listener listener) { this.listener = listener; }
+
+    void node() { nodes.increment(); }
+
+    long nodes() { return nodes.sum(); }
+
+    int bestCost() { return bestCost; }
+
+    /** Solapes de la mejor solución (la de menor coste), o Integer.MAX_VALUE si aún no hay. */
+    int bestConflicts() { return bestConflicts; }
+
+    void cancel() { cancelled = true; }
+
+    boolean isCancelled() { return cancelled; }
+
+    synchronized void improved(Solution s) {
+        if (s.cost() >= bestCost) return;
+        bestCost = s.cost();
+        bestConflicts = s.conflicts();
+        improvements++;
+        if (listener != null) listener.onIncumbent(s);
+    }
+
+    /** Suma los contadores locales de una tarea de búsqueda. */
+    void counters(long prunes, long freeDaySkips) {
+        this.prunes.add(prunes);
+        this.freeDaySkips.add(freeDaySkips);
+    }
+
+    /** Anota la duración de una fase que empezó en {@code startNanos} (System.nanoTime). */
+    void phase(String name, long startNanos) {
+        long d = System.nanoTime() - startNanos;
+        synchronized (phases) { phases.merge(name, d, Long::sum); }
+        SearchStats.PhaseEvent e = new SearchStats.PhaseEvent();
+        if (e.isEnabled()) {
+            e.fase = name;
+            e.duracion = d;
+            e.commit();
+        }
+    }
+
+    synchronized SearchStats stats() {
+        Map<String, Long> us = new LinkedHashMap<>();
+        synchronized (phases) { phases.forEach((k, v) -> us.put(k, v / 1000)); }
+        return new SearchStats(us, nodes.sum(), prunes.sum(), freeDaySkips.sum(), improvements);
+    }
+}
@@ -0,0 +1,35 @@
+// SearchProblem.java
+// -----------------------------------------------------------------------------
+// Problema de búsqueda ya preparado por Scheduler: dominios de ids de grupo (en
+// el orden en que se ramifica), matriz de conflictos pareados, máscaras
+// semanales por id y días libres como máscara de bits (ver WeekMask).
+//
+// objective: qué se minimiza (solapes y, si la consulta lo pide, costes por día).
+//
+// seeds: hojas válidas ya conocidas (arranque en caliente, ver WarmStart),
+// ordenadas por coste. Sólo sirven de cota: los motores no las devuelven.
+// -----------------------------------------------------------------------------
+
+import java.util.List;
+
+record SearchProblem(List<int[]> domains, int[][] conflicts, WeekMask[] masks, int freeDayBits,
+                     Objective objective, List<Solution> seeds) {
+    SearchProblem(List<int[]> domains, int[][] conflicts, WeekMask[] masks, int freeDayBits) {
+        this(domains, conflicts, masks, freeDayBits, Objective.OVERLAPS, List.of());
+    }
+
+    int size() { return masks.length; }
+
+    SearchProblem withSeeds(List<Solution> seeds) {
+        return new SearchProblem(domains, conflicts, masks, freeDayBits, objective, List.copyOf(seeds));
+    }
+
+    SearchProblem withObjective(Objective objective) {
+        return new SearchProblem(domains, conflicts, masks, freeDayBits, objective, seeds);
+    }
+
+    /** Cota superior del k-ésimo mejor coste, o Integer.MAX_VALUE si no hay k semillas. */
+    int seedBound(int k) {
+        return seeds.size() < k ? Integer.MAX_VALUE : seeds.get(k - 1).cost();
+    }
+}
@@ -0,0 +1,84 @@
+// SearchStats.java
+// -----------------------------------------------------------------------------
+// Estadísticas de un cálculo, para saber por qué una selección va lenta:
+// duración de cada fase (µs) y contadores de la búsqueda. Lo reúne el
+// SearchMonitor; se muestra en la ventana, va en el JSON de los modos sin
+// ventana ("estadisticas") y se emite como eventos de JDK Flight Recorder:
+//
+//   cuadreitor.Fase      una por fase (compilar, seleccionar, matriz, ordenar,
+//                        buscar, mostrar), con su duración
+//   cuadreitor.Busqueda  una por cálculo, con tamaño del problema y contadores
+//
+//   java -XX:StartFlightRecording=filename=cuadreitor.jfr -jar Scheduler.jar ...
+//   jfr print --events cuadreitor.Busqueda cuadreitor.jfr
+//
+// Contadores: nodos (grupos probados), podas por cota, grupos descartados por
+// días libres e incumbentes que mejoran. En Choco las podas son sus fallos.
+// Los descartes por días libres se cuentan una vez al preparar la consulta
+// (CompiledCatalogue.prepare quita esos grupos de los dominios), no por nodo.
+// No hay aciertos ni fallos de memo: la tabla de transposiciones se quitó
+// (nunca acertaba, ver Backtracker) y sus contadores con ella.
+// -----------------------------------------------------------------------------
+
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+record SearchStats(Map<String, Long> fasesUs, long nodos, long podas, long diasLibresDescartados, long mejoras) {
+
+    /** Bloque de texto para la ventana. */
+    String toText() {
+        StringBuilder sb = new StringBuilder();
+        fasesUs.forEach((fase, us) -> sb.append(String.format("%-12s %,10.1f ms%n", fase, us / 1000.0)));
+        sb.append(String.format("nodos        %,12d%n", nodos));
+        sb.append(String.format("podas        %,12d%n", podas));
+        sb.append(String.format("días libres  %,12d grupos descartados%n", diasLibresDescartados));
+        sb.append(String.format("mejoras      %,12d", mejoras));
+        return sb.toString();
+    }
+
+    /** Evento JFR con el resumen del cálculo (no hace nada si JFR no está grabando). */
+    void emit(String engine, Scheduler.Prepared prepared, int k, int best, boolean cancelled) {
+        SearchEvent e = new SearchEvent();
+        if (!e.isEnabled()) return;
+        e.motor = engine;
+        e.dominios = prepared == null ? 0 : prepared.problem().domains().size();
+        e.grupos = prepared == null ? 0 : prepared.problem().size();
+        e.alternativas = k;
+        e.mejor = best;
+        e.cancelada = cancelled;
+        e.nodos = nodos;
+        e.podas = podas;
+        e.diasLibresDescartados = diasLibresDescartados;
+        e.mejoras = mejoras;
+        e.commit();
+    }
+
+    @Name("cuadreitor.Fase")
+    @Label("Fase del cálculo")
+    @Category("Cuadreitor")
+    static final class PhaseEvent extends Event {
+        @Label("Fase") String fase;
+        @Label("Duración") @Timespan(Timespan.NANOSECONDS) long duracion;
+    }
+
+    @Name("cuadreitor.Busqueda")
+    @Label("Búsqueda de horario")
+    @Category("Cuadreitor")
+    static final class SearchEvent extends Event {
+        @Label("Motor") String motor;
+        @Label("Dominios") int dominios;
+        @Label("Grupos") int grupos;
+        @Label("Alternativas") int alternativas;
+        @Label("Mejor (solapes)") int mejor;
+        @Label("Cancelada") boolean cancelada;
+        @Label("Nodos") long nodos;
+        @Label("Podas") long podas;
+        @Label("Descartes por días libres") long diasLibresDescartados;
+        @Label("Mejoras") long mejoras;
+    }
+}
@@ -0,0 +1,8 @@
+// Solution.java
+// -----------------------------------------------------------------------------
+// Asignación encontrada por la búsqueda: un id de grupo por dominio (mismo orden
+// que SearchProblem.domains), su coste según el Objective del problema (por el
+// que se ordena) y su número total de solapamientos.
+// -----------------------------------------------------------------------------
+
+record Solution(int cost, int conflicts, int[] ids) {}
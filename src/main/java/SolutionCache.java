@@ -0,0 +1,144 @@
+// SolutionCache.java
+// -----------------------------------------------------------------------------
+// Resultados ya calculados, compartidos entre consultas (ScheduleService): en
+// plena matrícula muchos alumnos piden lo mismo y así sólo se busca una vez.
+//
+// Clave: la forma canónica de la consulta (asignaturas ordenadas y sin
+// repetir, semestre, días libres como bits, SP de las asignaturas elegidas,
+// bloqueo de subgrupo, pesos, motor y k) más la huella del catálogo con el que
+// se calculó (CompiledCatalogue.version). Al recargar un catálogo distinto se
+// vacía; lo que aún estuviera calculándose con el anterior se guarda con su
+// huella vieja y nunca vuelve a acertar.
+//
+// Tamaño: LRU acotada por bytes aproximados (la matriz de conflictos manda:
+// 4·n² por resultado; máscaras y grupos son del catálogo compilado y no
+// cuentan). Con 0 bytes no se guarda nada, pero se siguen compartiendo las
+// búsquedas en curso.
+//
+// En curso: si llega una consulta igual a otra que aún se está buscando, espera
+// a esa en vez de lanzar otra, pero sólo mientras su propio monitor siga vivo:
+// cada espera tiene su límite, y si vence antes que la búsqueda ajena busca por
+// su cuenta (con el monitor ya cancelado devuelve lo que tenga). Lo que se
+// canceló no se guarda, y quien esperaba un resultado parcial busca por su cuenta.
+// -----------------------------------------------------------------------------
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+final class SolutionCache {
+    static final long DEFAULT_BYTES = 64L << 20;
+    /** Cada cuánto mira quien espera una búsqueda ajena si se le ha acabado el tiempo. */
+    private static final long WAIT_SLICE_MS = 10;
+
+    record Key(long catalogue, List<String> subjects, String semester, int freeDays, List<String> skipPractices,
+               boolean lockSameSubgroup, Objective objective, String engine, int k) {
+        static Key of(long catalogue, ScheduleQuery q, ScheduleEngine engine, int k) {
+            Set<String> subjects = new TreeSet<>(q.subjects());
+            Set<String> sp = new TreeSet<>(q.skipPractices());
+            sp.retainAll(subjects);
+            return new Key(catalogue, List.copyOf(subjects), q.semester(), WeekMask.dayBits(q.freeDays()),
+                    List.copyOf(sp), q.lockSameSubgroup(), q.objective(), ScheduleEngine.nameOf(engine), k);
+        }
+    }
+
+    private record Entry(ScheduleService.Outcome outcome, long bytes) {}
+
+    private final long capacity;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);   // orden de uso
+    private final Map<Key, CompletableFuture<ScheduleService.Outcome>> inFlight = new HashMap<>();
+    private long bytes;
+
+    SolutionCache(long capacityBytes) {
+        if (capacityBytes < 0) throw new IllegalArgumentException("Tamaño de caché negativo: " + capacityBytes);
+        this.capacity = capacityBytes;
+    }
+
+    /**
+     * Resultado de {@code key}: el guardado (marcado con fromCache), el de una
+     * búsqueda igual en curso o, si no hay ninguno, el de {@code search}. La
+     * espera a una búsqueda ajena acaba cuando se cancela {@code monitor}.
+     */
+    ScheduleService.Outcome get(Key key, SearchMonitor monitor, Supplier<ScheduleService.Outcome> search) {
+        CompletableFuture<ScheduleService.Outcome> running, mine = null;
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null) return e.outcome().fromCache();
+            running = inFlight.get(key);
+            if (running == null) inFlight.put(key, mine = new CompletableFuture<>());
+        }
+        if (running != null) {
+            ScheduleService.Outcome o = await(running, monitor);
+            return o == null || o.cancelled() ? search.get() : o.fromCache();
+        }
+
+        ScheduleService.Outcome o;
+        try { o = search.get(); }
+        catch (RuntimeException | Error e) {
+            synchronized (this) { inFlight.remove(key); }
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            inFlight.remove(key);
+            if (!o.cancelled()) put(key, o);
+        }
+        mine.complete(o);
+        return o;
+    }
+
+    // Resultado de la búsqueda ajena, o null si antes se cancela monitor
+    private static ScheduleService.Outcome await(CompletableFuture<ScheduleService.Outcome> running, SearchMonitor monitor) {
+        while (!monitor.isCancelled()) {
+            try { return running.get(WAIT_SLICE_MS, TimeUnit.MILLISECONDS); }
+            catch (TimeoutException e) { /* sigue esperando */ }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof RuntimeException re) throw re;
+                if (ee.getCause() instanceof Error err) throw err;
+                throw new IllegalStateException(ee.getCause());
+            }
+        }
+        return null;
+    }
+
+    /** Olvida todo lo guardado (las búsquedas en curso siguen y se comparten). */
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void put(Key key, ScheduleService.Outcome o) {
+        long b = bytesOf(o);
+        if (b > capacity) return;
+        Entry old = entries.put(key, new Entry(o, b));
+        if (old != null) bytes -= old.bytes();
+        bytes += b;
+        for (Iterator<Entry> it = entries.values().iterator(); bytes > capacity && it.hasNext(); ) {
+            bytes -= it.next().bytes();
+            it.remove();
+        }
+    }
+
+    // Aproximado: matriz de conflictos, arrays por grupo y soluciones
+    private static long bytesOf(ScheduleService.Outcome o) {
+        long b = 256;
+        if (o.prepared() != null) {
+            long n = o.prepared().problem().size();
+            b += 4 * n * n + 32 * n;
+        }
+        for (Solution s : o.solutions()) b += 32 + 4L * s.ids().length;
+        return b;
+    }
+}
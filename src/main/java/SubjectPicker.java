@@ -0,0 +1,303 @@
+// SubjectPicker.java
+// -----------------------------------------------------------------------------
+// Selector de asignaturas para catálogos grandes: una JTable virtual (sólo se
+// pintan las filas visibles, con los renderers de siempre reutilizados) en vez
+// de un botón, un check "SP", un panel y unas GridBagConstraints por asignatura.
+//
+// Filas: cabeceras "Semestre s - Curso c" y asignaturas, ordenadas por semestre
+// → curso → nombre (las claves se calculan una vez, no en el comparador).
+// Lo marcado (asignatura y SP) vive en el modelo, por nombre, así que sobrevive
+// al filtro y a las recargas de horarios.json.
+//
+// Filtro al escribir: índice de tokens normalizados (minúsculas, sin tildes)
+// ordenado, construido al cargar el catálogo. Cada palabra buscada tiene que ser
+// prefijo de algún token de la asignatura: dos búsquedas binarias por palabra.
+// -----------------------------------------------------------------------------
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.border.Border;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+
+final class SubjectPicker extends JPanel {
+    private static final int COL_SELECTED = 0, COL_NAME = 1, COL_SP = 2;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Model model = new Model();
+    private final JTextField filter = new JTextField();
+    private final JTable table = new JTable(model) {
+        @Override public String getToolTipText(MouseEvent e) {
+            return columnAtPoint(e.getPoint()) == COL_SP
+                    ? "Sin prácticas: excluir 'Prácticas' y 'Prácticas aula' de esta asignatura." : null;
+        }
+    };
+
+    SubjectPicker(Font font) {
+        super(new BorderLayout(0, 4));
+        filter.setFont(font);
+        filter.setToolTipText("Filtra por nombre (sin distinguir mayúsculas ni tildes).");
+        filter.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { model.filter(filter.getText()); }
+            @Override public void removeUpdate(DocumentEvent e) { model.filter(filter.getText()); }
+            @Override public void changedUpdate(DocumentEvent e) { model.filter(filter.getText()); }
+        });
+        JPanel top = new JPanel(new BorderLayout(6, 0));
+        top.add(new JLabel("Buscar:"), BorderLayout.WEST);
+        top.add(filter, BorderLayout.CENTER);
+        add(top, BorderLayout.NORTH);
+
+        table.setFont(font);
+        table.setRowHeight(font.getSize() + 10);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setShowGrid(false);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setToolTipText("");           // registra la tabla para getToolTipText
+        table.getColumnModel().getColumn(COL_SELECTED).setMaxWidth(30);
+        table.getColumnModel().getColumn(COL_SP).setMaxWidth(50);
+        TableCellRenderer checks = new CheckRenderer(table.getDefaultRenderer(Boolean.class));
+        table.getColumnModel().getColumn(COL_SELECTED).setCellRenderer(checks);
+        table.getColumnModel().getColumn(COL_SP).setCellRenderer(checks);
+        table.getColumnModel().getColumn(COL_NAME).setCellRenderer(new NameRenderer(font));
+        // Pulsar el nombre también marca la asignatura, como el botón de antes
+        table.addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                if (row >= 0 && table.columnAtPoint(e.getPoint()) == COL_NAME) model.toggle(row);
+            }
+        });
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    /** Sustituye el catálogo conservando lo marcado (por nombre) que siga existiendo. */
+    void setCatalogue(List<Scheduler.Subject> subjects) {
+        model.load(subjects);
+        model.filter(filter.getText());
+    }
+
+    /** Asignaturas marcadas, en el orden de la lista. */
+    List<String> selected() {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < model.names.length; i++) if (model.selected.contains(model.names[i])) out.add(model.names[i]);
+        return out;
+    }
+
+    /** Asignaturas marcadas como "SP" (sin prácticas). */
+    Set<String> skipPractices() {
+        return new HashSet<>(model.skip);
+    }
+
+    static String normalize(String s) {
+        return MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private record Token(String text, int subject) {}
+
+    /* ---------- Modelo: filas visibles sobre el catálogo ordenado ---------- */
+    private static final class Model extends AbstractTableModel {
+        // Catálogo ordenado (semestre, curso, nombre) y cabecera de cada asignatura
+        String[] names = new String[0];
+        int[] header = new int[0];          // índice en headers
+        String[] headers = new String[0];
+        // Índice: tokens normalizados ordenados y la asignatura de cada uno
+        String[] tokens = new String[0];
+        int[] owner = new int[0];
+        // Estado por nombre
+        final Set<String> selected = new HashSet<>(), skip = new HashSet<>();
+        // Filas visibles: ≥ 0 asignatura, < 0 cabecera ~h
+        int[] rows = new int[0];
+
+        void load(List<Scheduler.Subject> subjects) {
+            int n = subjects.size();
+            int[] sem = new int[n], curso = new int[n];
+            for (int i = 0; i < n; i++) {
+                Scheduler.Session s = subjects.get(i).groups().get(0).sessions().get(0);
+                sem[i] = parse(s.semestre());
+                curso[i] = parse(s.curso());
+            }
+            Collator coll = Collator.getInstance(new Locale("es", "ES"));
+            CollationKey[] key = new CollationKey[n];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                key[i] = coll.getCollationKey(subjects.get(i).name());
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.<Integer>comparingInt(i -> sem[i]).thenComparingInt(i -> curso[i])
+                    .thenComparing(i -> key[i]));
+
+            names = new String[n];
+            header = new int[n];
+            List<String> hs = new ArrayList<>();
+            List<Token> toks = new ArrayList<>();
+            int lastSem = Integer.MIN_VALUE, lastCurso = Integer.MIN_VALUE;
+            for (int k = 0; k < n; k++) {
+                int i = order[k];
+                if (sem[i] != lastSem || curso[i] != lastCurso) {
+                    hs.add("Semestre " + label(sem[i]) + " - Curso " + label(curso[i]));
+                    lastSem = sem[i];
+                    lastCurso = curso[i];
+                }
+                names[k] = subjects.get(i).name();
+                header[k] = hs.size() - 1;
+                String norm = normalize(names[k]);
+                Set<String> ts = new HashSet<>(Arrays.asList(SEPARATORS.split(norm)));
+                ts.add(SEPARATORS.matcher(norm).replaceAll(""));        // "CN*" → "cn", "BD 2" → "bd2"
+                ts.remove("");
+                for (String t : ts) toks.add(new Token(t, k));
+            }
+            headers = hs.toArray(new String[0]);
+            toks.sort(Comparator.comparing(Token::text));
+            tokens = new String[toks.size()];
+            owner = new int[toks.size()];
+            for (int j = 0; j < tokens.length; j++) {
+                tokens[j] = toks.get(j).text();
+                owner[j] = toks.get(j).subject();
+            }
+
+            Set<String> present = new HashSet<>(Arrays.asList(names));
+            selected.retainAll(present);
+            skip.retainAll(present);
+        }
+
+        void filter(String text) {
+            String[] words = SEPARATORS.split(normalize(text.trim()));
+            BitSet match = new BitSet(names.length);
+            match.set(0, names.length);
+            for (String w : words) {
+                if (w.isEmpty()) continue;
+                BitSet hits = new BitSet(names.length);
+                // Tokens con prefijo w: de lowerBound(w) a lowerBound(w + U+FFFF)
+                for (int j = lowerBound(w), end = lowerBound(w + '\uffff'); j < end; j++) hits.set(owner[j]);
+                match.and(hits);
+            }
+            int[] out = new int[names.length + headers.length];
+            int m = 0, lastHeader = -1;
+            for (int k = match.nextSetBit(0); k >= 0; k = match.nextSetBit(k + 1)) {
+                if (header[k] != lastHeader) out[m++] = ~header[k];
+                lastHeader = header[k];
+                out[m++] = k;
+            }
+            rows = Arrays.copyOf(out, m);
+            fireTableDataChanged();
+        }
+
+        void toggle(int row) {
+            if (rows[row] < 0) return;
+            setValueAt(!selected.contains(names[rows[row]]), row, COL_SELECTED);
+        }
+
+        boolean isHeader(int row) { return rows[row] < 0; }
+
+        private int lowerBound(String key) {
+            int lo = 0, hi = tokens.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tokens[mid].compareTo(key) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private static int parse(String s) {
+            try { return Integer.parseInt(s.trim()); }
+            catch (RuntimeException e) { return Integer.MAX_VALUE; }
+        }
+
+        private static String label(int v) {
+            return v == Integer.MAX_VALUE ? "?" : Integer.toString(v);
+        }
+
+        @Override public int getRowCount() { return rows.length; }
+
+        @Override public int getColumnCount() { return 3; }
+
+        @Override public String getColumnName(int c) { return c == COL_SP ? "SP" : c == COL_NAME ? "Asignatura" : ""; }
+
+        @Override public Class<?> getColumnClass(int c) { return c == COL_NAME ? String.class : Boolean.class; }
+
+        @Override public boolean isCellEditable(int r, int c) { return c != COL_NAME && rows[r] >= 0; }
+
+        @Override public Object getValueAt(int r, int c) {
+            int k = rows[r];
+            if (k < 0) return c == COL_NAME ? headers[~k] : null;
+            return switch (c) {
+                case COL_SELECTED -> selected.contains(names[k]);
+                case COL_SP -> skip.contains(names[k]);
+                default -> names[k];
+            };
+        }
+
+        @Override public void setValueAt(Object v, int r, int c) {
+            int k = rows[r];
+            if (k < 0) return;
+            Set<String> target = c == COL_SP ? skip : selected;
+            if (Boolean.TRUE.equals(v)) target.add(names[k]);
+            else target.remove(names[k]);
+            fireTableCellUpdated(r, c);
+        }
+    }
+
+    /* ---------- Renderers: uno por columna, reutilizados en todas las filas ---------- */
+    // Casillas: la de Boolean de la tabla; en las cabeceras, nada
+    private static final class CheckRenderer implements TableCellRenderer {
+        private final TableCellRenderer checks;
+        private final DefaultTableCellRenderer blank = new DefaultTableCellRenderer();
+
+        CheckRenderer(TableCellRenderer checks) { this.checks = checks; }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable t, Object v, boolean sel, boolean foc, int row, int col) {
+            if (v == null) return blank.getTableCellRendererComponent(t, "", false, false, row, col);
+            return checks.getTableCellRendererComponent(t, v, sel, foc, row, col);
+        }
+    }
+
+    // Nombre; las cabeceras en negrita y con un poco de aire arriba
+    private static final class NameRenderer extends DefaultTableCellRenderer {
+        private final Font plain, bold;
+        private final Border headerPad = BorderFactory.createEmptyBorder(4, 2, 0, 0),
+                subjectPad = BorderFactory.createEmptyBorder(0, 6, 0, 0);
+
+        NameRenderer(Font font) {
+            this.plain = font;
+            this.bold = font.deriveFont(Font.BOLD);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable t, Object v, boolean sel, boolean foc, int row, int col) {
+            boolean header = ((Model) t.getModel()).isHeader(row);
+            super.getTableCellRendererComponent(t, v, sel && !header, foc && !header, row, col);
+            setFont(header ? bold : plain);
+            setBorder(header ? headerPad : subjectPad);
+            return this;
+        }
+    }
+}
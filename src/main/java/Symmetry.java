@@ -0,0 +1,111 @@
+// Symmetry.java
+// -----------------------------------------------------------------------------
+// Reducción de simetrías antes de buscar: dentro de cada dominio, los grupos
+// que solapan exactamente igual con todo lo demás elegido (misma huella
+// semanal, o huellas que no tocan a nadie) son intercambiables, así que se
+// busca sólo con el primero de cada clase y el resto se lista en el resumen
+// como alternativa equivalente.
+//
+// Dominancia (sólo con k = 1): un grupo que solapa al menos tanto como otro
+// de su dominio con cada grupo de los demás, y más con alguno, nunca mejora
+// la solución; se descarta. Con k > 1 no se aplica, porque esos grupos sí
+// pueden formar parte de la segunda o tercera alternativa.
+//
+// Sólo cuentan los grupos que respetan los días libres: los demás nunca se
+// eligen, así que sus solapes no distinguen a nadie.
+//
+// Con costes por día (Objective.soft) dos grupos sólo son intercambiables si
+// además ocupan las mismas franjas, y no se descartan dominados: solapar menos
+// no quiere decir dejar menos huecos.
+// -----------------------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+final class Symmetry {
+    private Symmetry() {}
+
+    // Fila de solapes de un grupo con los de los demás dominios (+ si es admisible
+    // y, con costes por día, sus franjas; si no, slots es null)
+    private record Row(boolean admissible, int[] conflicts, long[] slots) {
+        @Override public boolean equals(Object o) {
+            return o instanceof Row r && r.admissible == admissible && Arrays.equals(r.conflicts, conflicts)
+                    && Arrays.equals(r.slots, slots);
+        }
+
+        @Override public int hashCode() {
+            return (Arrays.hashCode(conflicts) * 31 + Arrays.hashCode(slots)) * 31 + (admissible ? 1 : 0);
+        }
+    }
+
+    /**
+     * {@code p} con cada dominio reducido a un representante por clase de
+     * equivalencia (el primero en el orden de valores) y, si {@code dominance},
+     * sin los grupos dominados (nunca con costes por día). classes[id] son los miembros de la clase de cada
+     * representante (él incluido).
+     */
+    static Scheduler.Prepared reduce(Scheduler.Prepared p, boolean dominance) {
+        SearchProblem problem = p.problem();
+        List<int[]> domains = problem.domains();
+        int[][] conf = problem.conflicts();
+        int n = problem.size();
+        boolean soft = problem.objective().soft();
+        if (soft) dominance = false;
+        boolean[] admissible = new boolean[n];
+        int[] domainOf = new int[n];
+        for (int d = 0; d < domains.size(); d++)
+            for (int id : domains.get(d)) {
+                domainOf[id] = d;
+                admissible[id] = !problem.masks()[id].hasAnyDay(problem.freeDayBits());
+            }
+
+        int[][] classes = new int[n][];
+        List<int[]> reduced = new ArrayList<>(domains.size());
+        for (int d = 0; d < domains.size(); d++) {
+            int[] dom = domains.get(d);
+            int dd = d;
+            int[] others = IntStream.range(0, n)
+                    .filter(x -> admissible[x] && domainOf[x] != dd).toArray();
+
+            // Clases de equivalencia, en el orden de valores del dominio
+            Map<Row, List<Integer>> byRow = new LinkedHashMap<>();
+            for (int id : dom) {
+                int[] row = new int[others.length];
+                for (int i = 0; i < others.length; i++) row[i] = conf[id][others[i]];
+                long[] slots = soft ? problem.masks()[id].slots() : null;
+                byRow.computeIfAbsent(new Row(admissible[id], row, slots), r -> new ArrayList<>()).add(id);
+            }
+            List<Row> rows = new ArrayList<>(byRow.keySet());
+            boolean[] dropped = new boolean[rows.size()];
+            if (dominance)
+                for (int a = 0; a < rows.size(); a++)
+                    for (int b = 0; b < rows.size() && !dropped[a]; b++)
+                        if (a != b && !dropped[b] && dominates(rows.get(b), rows.get(a))) dropped[a] = true;
+
+            int[] kept = new int[rows.size()];
+            int m = 0;
+            for (int r = 0; r < rows.size(); r++) {
+                if (dropped[r]) continue;
+                List<Integer> members = byRow.get(rows.get(r));
+                kept[m++] = members.get(0);
+                classes[members.get(0)] = members.stream().mapToInt(Integer::intValue).toArray();
+            }
+            reduced.add(Arrays.copyOf(kept, m));
+        }
+
+        SearchProblem out = new SearchProblem(reduced, conf, problem.masks(), problem.freeDayBits(),
+                problem.objective(), problem.seeds());
+        return new Scheduler.Prepared(p.subjects(), p.global(), p.order(), out, p.variant(), p.groupIds(), classes);
+    }
+
+    // a domina a b: ambos admisibles, a no solapa más que b con nadie (y las filas difieren)
+    private static boolean dominates(Row a, Row b) {
+        if (!a.admissible || !b.admissible) return false;
+        for (int i = 0; i < a.conflicts.length; i++) if (a.conflicts[i] > b.conflicts[i]) return false;
+        return true;
+    }
+}
@@ -0,0 +1,222 @@
+// TimetableModel.java
+// -----------------------------------------------------------------------------
+// Modelo precalculado de la tabla "Horario": una celda por (franja, día) en
+// arrays planos indexados por fila * COLUMNS + columna, con el texto ya unido y,
+// para cada sesión de la celda, su etiqueta, su color y si está en conflicto.
+// Se calcula al abrir el diálogo y al cambiar de resolución (60, 30 o 15 min).
+//
+// Renderer pinta cada celda directamente sobre Graphics con un único componente
+// reutilizado (sin paneles ni etiquetas por celda, sin claves Point): pintar no
+// crea objetos, así que desplazar o redimensionar con franjas finas no se atasca.
+// Mismo aspecto que antes: color por tipo, franja amarilla arriba si hay
+// conflicto y, con varias sesiones, la celda partida en vertical.
+// -----------------------------------------------------------------------------
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableCellRenderer;
+
+final class TimetableModel extends AbstractTableModel {
+    static final int[] RESOLUTIONS = {60, 30, 15};
+    static final String[] HEADERS = {"Hora", "Lun", "Mar", "Mié", "Jue", "Vie"};
+    static final int COLUMNS = HEADERS.length;
+
+    static final Color GRID = new Color(200, 200, 200);
+    static final Color CONFLICT = new Color(255, 235, 59);
+    static final Color PRACTICAS_AULA = new Color(173, 216, 230);
+    static final Color PRACTICAS = new Color(144, 238, 144);
+
+    private static final DayOfWeek[] DAYS = {DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+            DayOfWeek.THURSDAY, DayOfWeek.FRIDAY};
+
+    // Sesiones, una vez: día, minutos, etiqueta, color y conflicto
+    private final int[] day, start, end;
+    private final String[] label;
+    private final Color[] colour;
+    private final boolean[] conflict;
+    private final int minStart, maxEnd;
+
+    // Celdas de la resolución actual
+    private int slotMinutes, firstMinute, rows;
+    private String[] text;            // hora en la columna 0, sesiones unidas por ", " en las demás
+    private int[] first, count;       // rango de la celda en cellSessions
+    private int[] cellSessions;       // índices de sesión, celda a celda
+
+    TimetableModel(Map<DayOfWeek, List<Scheduler.Session>> porDia, Set<Scheduler.Session> enConf, int slotMinutes) {
+        List<Scheduler.Session> all = new ArrayList<>();
+        List<Integer> days = new ArrayList<>();
+        for (int d = 0; d < DAYS.length; d++)
+            for (Scheduler.Session s : porDia.getOrDefault(DAYS[d], List.of())) { all.add(s); days.add(d); }
+        int n = all.size();
+        day = new int[n];
+        start = new int[n];
+        end = new int[n];
+        label = new String[n];
+        colour = new Color[n];
+        conflict = new boolean[n];
+        int lo = 24 * 60, hi = 0;
+        for (int i = 0; i < n; i++) {
+            Scheduler.Session s = all.get(i);
+            day[i] = days.get(i);
+            start[i] = s.start().getHour() * 60 + s.start().getMinute();
+            end[i] = s.end().getHour() * 60 + s.end().getMinute();
+            label[i] = s.curso() + "º" + s.asignatura() + "[" + s.grupo() + "]";
+            colour[i] = colourOf(s.tipo());
+            conflict[i] = enConf.contains(s);
+            lo = Math.min(lo, start[i]);
+            hi = Math.max(hi, end[i]);
+        }
+        minStart = n == 0 ? 0 : lo;
+        maxEnd = n == 0 ? 60 : hi;
+        setResolution(slotMinutes);
+    }
+
+    /** Recalcula las celdas con franjas de {@code minutes} minutos (divisor de 60). */
+    void setResolution(int minutes) {
+        if (minutes <= 0 || 60 % minutes != 0)
+            throw new IllegalArgumentException("La resolución debe dividir a 60: " + minutes);
+        slotMinutes = minutes;
+        // Desde la hora en punto anterior hasta la siguiente, como antes
+        firstMinute = minStart / 60 * 60;
+        int last = (maxEnd + 59) / 60 * 60;
+        rows = Math.max(1, (last - firstMinute) / minutes);
+
+        int cells = rows * COLUMNS;
+        text = new String[cells];
+        first = new int[cells];
+        count = new int[cells];
+        int[] buf = new int[Math.max(1, cells * 2)];
+        int used = 0;
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < rows; r++) {
+            int a = firstMinute + r * minutes, b = a + minutes;
+            text[r * COLUMNS] = String.format("%02d:%02d-%02d:%02d", a / 60 % 24, a % 60, b / 60 % 24, b % 60);
+            for (int c = 1; c < COLUMNS; c++) {
+                int cell = r * COLUMNS + c;
+                first[cell] = used;
+                sb.setLength(0);
+                for (int i = 0; i < day.length; i++) {
+                    if (day[i] != c - 1 || start[i] >= b || end[i] <= a) continue;
+                    if (used == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                    buf[used++] = i;
+                    if (sb.length() > 0) sb.append(", ");
+                    sb.append(label[i]);
+                }
+                count[cell] = used - first[cell];
+                text[cell] = sb.toString();
+            }
+        }
+        cellSessions = Arrays.copyOf(buf, used);
+        fireTableDataChanged();
+    }
+
+    int resolution() { return slotMinutes; }
+
+    static Color colourOf(String tipoRaw) {
+        String tipo = tipoRaw.toLowerCase(Locale.ROOT);
+        if (tipo.contains("prácticas aula") || tipo.contains("practicas aula")) return PRACTICAS_AULA;
+        if (tipo.contains("prácticas") || tipo.contains("practicas")) return PRACTICAS;
+        return Color.WHITE;
+    }
+
+    @Override public int getRowCount() { return rows; }
+
+    @Override public int getColumnCount() { return COLUMNS; }
+
+    @Override public String getColumnName(int c) { return HEADERS[c]; }
+
+    @Override public Object getValueAt(int r, int c) { return text[r * COLUMNS + c]; }
+
+    /* ---------- Pintado sin componentes por celda ---------- */
+    static final class Renderer extends JComponent implements TableCellRenderer {
+        private final TimetableModel model;
+        private final Font font, small;
+        private final Rectangle clip = new Rectangle();
+        private int cell;
+
+        Renderer(TimetableModel model, Font font) {
+            this.model = model;
+            this.font = font;
+            this.small = font.deriveFont(Font.PLAIN, Math.max(10, font.getSize() - 2));
+            setOpaque(true);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable t, Object val, boolean sel, boolean foc, int row, int col) {
+            cell = row * COLUMNS + col;
+            return this;
+        }
+
+        @Override protected void paintComponent(Graphics g) {
+            int w = getWidth(), h = getHeight();
+            int n = cell % COLUMNS == 0 ? 0 : model.count[cell];
+            if (n <= 1) {
+                int s = n == 0 ? -1 : model.cellSessions[model.first[cell]];
+                g.setColor(s < 0 ? Color.WHITE : model.colour[s]);
+                g.fillRect(0, 0, w, h);
+                g.setFont(font);
+                g.setColor(Color.BLACK);
+                drawText(g, model.text[cell], 2, w - 4, h, false);
+                if (s >= 0 && model.conflict[s]) {
+                    g.setColor(CONFLICT);
+                    g.fillRect(0, 0, w, 3);
+                }
+            } else {
+                // Celda partida: una columna por sesión con 1 px de separación
+                g.setColor(GRID);
+                g.fillRect(0, 0, w, h);
+                g.setFont(small);
+                int inner = w - 2 - (n - 1);
+                for (int k = 0, x = 1; k < n; k++) {
+                    int s = model.cellSessions[model.first[cell] + k];
+                    int sw = inner / n + (k < inner % n ? 1 : 0);
+                    g.setColor(model.colour[s]);
+                    g.fillRect(x, 1, sw, h - 2);
+                    if (model.conflict[s]) {
+                        g.setColor(CONFLICT);
+                        g.fillRect(x, 1, sw, 3);
+                    }
+                    g.setColor(Color.BLACK);
+                    drawText(g, model.label[s], x, sw, h, true);
+                    x += sw + 1;
+                }
+            }
+            g.setColor(GRID);
+            g.drawRect(0, 0, w - 1, h - 1);
+        }
+
+        // Texto recortado a [x, x + width), centrado en vertical (y en horizontal si center)
+        private void drawText(Graphics g, String s, int x, int width, int h, boolean center) {
+            if (s.isEmpty() || width <= 0) return;
+            FontMetrics fm = g.getFontMetrics();
+            int tx = center ? x + Math.max(0, (width - fm.stringWidth(s)) / 2) : x;
+            int ty = (h - fm.getHeight()) / 2 + fm.getAscent();
+            g.getClipBounds(clip);
+            g.clipRect(x, 0, width, h);
+            g.drawString(s, tx, ty);
+            g.setClip(clip.x, clip.y, clip.width, clip.height);
+        }
+
+        // Como DefaultTableCellRenderer: el componente sólo se usa para pintar
+        @Override public void invalidate() {}
+        @Override public void validate() {}
+        @Override public void revalidate() {}
+        @Override public void repaint(long tm, int x, int y, int width, int height) {}
+        @Override protected void firePropertyChange(String name, Object oldValue, Object newValue) {}
+    }
+}
@@ -0,0 +1,116 @@
+// WarmStart.java
+// -----------------------------------------------------------------------------
+// Arranque en caliente: la mejor combinación del cálculo anterior, guardada como
+// ids estables del catálogo compilado para que sobreviva a cambios pequeños de
+// la selección (una asignatura o un día libre más o menos).
+//
+// En la nueva consulta se repara: cada dominio conserva su grupo anterior si
+// sigue siendo válido, el resto se rellena de forma voraz y se hace una pasada
+// de mejora local (1-opt). Esa asignación y sus vecinas a un cambio son hojas
+// reales, así que la k-ésima más barata es una cota superior válida para el
+// top-K y la búsqueda arranca podando contra ella en vez de contra infinito;
+// los motores devuelven exactamente lo mismo que sin arranque. Si las k semillas
+// no tienen ningún solape ya son óptimas y la ventana ni siquiera busca: se
+// queda con el horario anterior (más la asignatura nueva) en lugar de otro empate.
+// -----------------------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+record WarmStart(CompiledCatalogue.Variant variant, int[] groupIds) {
+    private static final int MAX_PASSES = 8;
+
+    /** Recuerda una solución de {@code p} para la próxima consulta. */
+    static WarmStart of(Scheduler.Prepared p, Solution sol) {
+        int[] ids = new int[sol.ids().length];
+        for (int d = 0; d < ids.length; d++) ids[d] = p.groupIds()[sol.ids()[d]];
+        return new WarmStart(p.variant(), ids);
+    }
+
+    /**
+     * Hasta k hojas baratas del problema de {@code p} (ordenadas por coste)
+     * obtenidas reparando la solución anterior. Vacía si la variante cambió o algún
+     * dominio no tiene ningún grupo compatible con los días libres.
+     */
+    List<Solution> seeds(Scheduler.Prepared p, int k) {
+        if (p.variant() != variant) return List.of();
+        SearchProblem problem = p.problem();
+        int[] localToStable = p.groupIds();
+        List<int[]> domains = problem.domains();
+        int[][] conf = problem.conflicts();
+        int D = domains.size();
+
+        // Valores admisibles y, si lo hay, el grupo que ya se tenía
+        Set<Integer> previous = new HashSet<>();
+        for (int id : groupIds) previous.add(id);
+        int[][] values = new int[D][];
+        int[] cur = new int[D];
+        boolean[] fixed = new boolean[D];
+        for (int d = 0; d < D; d++) {
+            values[d] = Arrays.stream(domains.get(d))
+                    .filter(id -> !problem.masks()[id].hasAnyDay(problem.freeDayBits())).toArray();
+            if (values[d].length == 0) return List.of();
+            // El grupo anterior puede haber quedado representado por otro equivalente
+            for (int id : values[d])
+                for (int m : p.classes() == null ? new int[]{id} : p.classes()[id])
+                    if (!fixed[d] && previous.contains(localToStable[m])) { cur[d] = id; fixed[d] = true; }
+        }
+
+        // Relleno voraz de los dominios nuevos contra lo ya fijado
+        for (int d = 0; d < D; d++) {
+            if (fixed[d]) continue;
+            int best = -1, bestCost = Integer.MAX_VALUE;
+            for (int id : values[d]) {
+                int c = 0;
+                for (int e = 0; e < D; e++) if (fixed[e]) c += conf[id][cur[e]];
+                if (c < bestCost) { bestCost = c; best = id; }
+            }
+            cur[d] = best;
+            fixed[d] = true;
+        }
+
+        // Mejora local: cambiar un dominio cada vez mientras baje el total
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean improved = false;
+            for (int d = 0; d < D; d++) {
+                int old = contribution(conf, cur, d, cur[d]);
+                for (int id : values[d]) {
+                    int c = contribution(conf, cur, d, id);
+                    if (c < old) { old = c; cur[d] = id; improved = true; }
+                }
+            }
+            if (!improved) break;
+        }
+
+        // La reparada y sus vecinas a un cambio: hojas distintas entre sí, con su
+        // coste según el objetivo (la reparación sólo mira solapes)
+        Objective obj = problem.objective();
+        int total = 0;
+        for (int d = 0; d < D; d++) for (int e = d + 1; e < D; e++) total += conf[cur[d]][cur[e]];
+        List<Solution> out = new ArrayList<>();
+        out.add(new Solution(obj.cost(total, problem.masks(), cur), total, cur.clone()));
+        for (int d = 0; d < D; d++) {
+            int old = contribution(conf, cur, d, cur[d]);
+            for (int id : values[d]) {
+                if (id == cur[d]) continue;
+                int[] ids = cur.clone();
+                ids[d] = id;
+                int c = total - old + contribution(conf, cur, d, id);
+                out.add(new Solution(obj.cost(c, problem.masks(), ids), c, ids));
+            }
+        }
+        out.sort(Comparator.comparingInt(Solution::cost));
+        return List.copyOf(out.subList(0, Math.min(k, out.size())));
+    }
+
+    // Solapes del valor id en el dominio d con el resto de la asignación
+    private static int contribution(int[][] conf, int[] cur, int d, int id) {
+        int c = 0;
+        for (int e = 0; e < cur.length; e++) if (e != d) c += conf[id][cur[e]];
+        return c;
+    }
+}
@@ -0,0 +1,120 @@
+// WeekMask.java
+// -----------------------------------------------------------------------------
+// Ocupación semanal compilada de un grupo: lunes–viernes en franjas de 5 minutos
+// empaquetadas en un long[] (WORDS_PER_DAY palabras por día). Se compila una vez
+// por grupo y permite descartar pares sin solape con un AND palabra a palabra.
+//
+// Las franjas redondean hacia fuera (inicio hacia abajo, fin hacia arriba), así
+// que el AND nunca pierde un solape real; cuando un día sí se cruza se cuentan
+// los pares de sesiones exactos sobre minutos primitivos, de modo que el número
+// de solapamientos es idéntico al de Session.overlaps.
+// -----------------------------------------------------------------------------
+
+import java.time.DayOfWeek;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+final class WeekMask {
+    static final int DAYS = 5;
+    static final int SLOT_MINUTES = 5;
+    static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) >>> 6;
+
+    private final long[] bits;       // DAYS * WORDS_PER_DAY palabras
+    private final int dayBits;       // bit d = hay sesión el día d (0 = lunes)
+    private final int[] dayStart;    // índice de la primera sesión de cada día (DAYS+1 entradas)
+    private final short[] start, end; // minutos desde las 00:00, ordenadas por día
+
+    private WeekMask(long[] bits, int dayBits, int[] dayStart, short[] start, short[] end) {
+        this.bits = bits;
+        this.dayBits = dayBits;
+        this.dayStart = dayStart;
+        this.start = start;
+        this.end = end;
+    }
+
+    /** Compila las sesiones de un grupo a su máscara semanal. */
+    static WeekMask of(Scheduler.Group g) {
+        List<Scheduler.Session> ses = g.sessions().stream()
+                .sorted(Comparator.comparing(Scheduler.Session::day))
+                .toList();
+        long[] bits = new long[DAYS * WORDS_PER_DAY];
+        int[] dayStart = new int[DAYS + 1];
+        short[] st = new short[ses.size()], en = new short[ses.size()];
+        int dayBits = 0;
+        for (int i = 0; i < ses.size(); i++) {
+            Scheduler.Session s = ses.get(i);
+            int d = dayIndex(s.day());
+            int a = s.start().getHour() * 60 + s.start().getMinute();
+            int b = s.end().getHour() * 60 + s.end().getMinute();
+            st[i] = (short) a;
+            en[i] = (short) b;
+            dayBits |= 1 << d;
+            dayStart[d + 1]++;
+            int from = a / SLOT_MINUTES;
+            setRange(bits, d * WORDS_PER_DAY, from, Math.max(from + 1, (b + SLOT_MINUTES - 1) / SLOT_MINUTES));
+        }
+        for (int d = 0; d < DAYS; d++) dayStart[d + 1] += dayStart[d];
+        return new WeekMask(bits, dayBits, dayStart, st, en);
+    }
+
+    /** Número de pares de sesiones que se solapan entre ambos grupos. */
+    int conflictsWith(WeekMask o) {
+        int common = dayBits & o.dayBits;
+        if (common == 0) return 0;
+        int c = 0;
+        for (int d = 0; d < DAYS; d++) {
+            if ((common & (1 << d)) == 0 || !intersectsDay(o, d)) continue;
+            for (int i = dayStart[d]; i < dayStart[d + 1]; i++)
+                for (int j = o.dayStart[d]; j < o.dayStart[d + 1]; j++)
+                    if (start[i] < o.end[j] && o.start[j] < end[i]) c++;
+        }
+        return c;
+    }
+
+    /** true si el grupo tiene alguna sesión en los días marcados en {@code freeDayBits}. */
+    boolean hasAnyDay(int freeDayBits) {
+        return (dayBits & freeDayBits) != 0;
+    }
+
+    int dayBits() { return dayBits; }
+
+    /** Añade (OR) sus franjas a una ocupación con el mismo formato (DAYS * WORDS_PER_DAY). */
+    void orInto(long[] occ) {
+        for (int i = 0; i < bits.length; i++) occ[i] |= bits[i];
+    }
+
+    /** Copia de sus franjas, para comparar huellas. */
+    long[] slots() {
+        return bits.clone();
+    }
+
+    static int dayBits(Set<DayOfWeek> dias) {
+        int m = 0;
+        for (DayOfWeek d : dias) if (d.getValue() <= DAYS) m |= 1 << dayIndex(d);
+        return m;
+    }
+
+    static int dayIndex(DayOfWeek d) {
+        return d.getValue() - 1;
+    }
+
+    private boolean intersectsDay(WeekMask o, int d) {
+        for (int w = d * WORDS_PER_DAY, last = w + WORDS_PER_DAY; w < last; w++)
+            if ((bits[w] & o.bits[w]) != 0) return true;
+        return false;
+    }
+
+    // Marca las franjas [from, to) de un día a partir de la palabra base
+    private static void setRange(long[] bits, int base, int from, int to) {
+        to = Math.min(to, SLOTS_PER_DAY);
+        for (int s = from; s < to; ) {
+            int w = s >>> 6, off = s & 63;
+            int n = Math.min(64 - off, to - s);
+            long run = n == 64 ? -1L : ((1L << n) - 1) << off;
+            bits[base + w] |= run;
+            s += n;
+        }
+    }
+}